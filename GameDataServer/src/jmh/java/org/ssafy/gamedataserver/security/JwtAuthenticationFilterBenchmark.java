@@ -0,0 +1,112 @@
+package org.ssafy.gamedataserver.security;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.ssafy.gamedataserver.entity.user.Role;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * JwtAuthenticationFilter 한 번 통과 시간 (verified-token cache hit rate 별)
+ *  - hot : 미리 cache 에 들어간 토큰, cold : 이번 iteration 에서 처음 보는 토큰
+ *  - hitRate = 0 은 매 요청 서명 검사 + claim 파싱 1회 (기존에는 요청마다 8회)
+ * iteration 마다 cache 를 새로 만들고, cold 토큰은 iteration 안에서 반복되지 않을 만큼 만들어둔다.
+ * ./gradlew jmh
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtAuthenticationFilterBenchmark {
+
+	private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+	private static final int HOT_TOKENS = 1_000;
+	private static final int COLD_TOKENS = 300_000;
+
+	@Param({ "0.0", "0.5", "0.9", "0.99" })
+	private double hitRate;
+
+	private SessionVersionService versions;
+	private String[] hotHeaders;
+	private String[] coldHeaders;
+	private JwtAuthenticationFilter filter;
+	private int coldNext;
+	private final SplittableRandom random = new SplittableRandom(42);
+	private final HttpServletResponse response = proxy(HttpServletResponse.class, null);
+	private final FilterChain chain = (req, res) -> { };
+	private final String[] current = new String[1];
+	private final HttpServletRequest request = proxy(HttpServletRequest.class, current);
+
+	@Setup(Level.Trial)
+	public void setUpTokens() {
+		versions = new SessionVersionService(null, null, "local", 14, 0, HOT_TOKENS + COLD_TOKENS, HOT_TOKENS + COLD_TOKENS);
+		JwtProvider signer = new JwtProvider(SECRET, 60, 14, 0);
+		hotHeaders = headers(signer, HOT_TOKENS, 0);
+		coldHeaders = headers(signer, COLD_TOKENS, HOT_TOKENS);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpCache() {
+		JwtProvider provider = new JwtProvider(SECRET, 60, 14, HOT_TOKENS + COLD_TOKENS);
+		for (String header : hotHeaders) provider.verify(header.substring(7));
+		filter = new JwtAuthenticationFilter(provider, versions);
+		coldNext = 0;
+	}
+
+	@Benchmark
+	public Object filter() throws Exception {
+		if (random.nextDouble() < hitRate) {
+			current[0] = hotHeaders[random.nextInt(HOT_TOKENS)];
+		} else {
+			current[0] = coldHeaders[coldNext++ % COLD_TOKENS];
+		}
+		filter.doFilterInternal(request, response, chain);
+		Object auth = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return auth;
+	}
+
+	private static String[] headers(JwtProvider signer, int count, int firstId) {
+		String[] out = new String[count];
+		for (int i = 0; i < count; i++) {
+			long id = firstId + i + 1L;
+			// 버전 0 (SessionVersionService 기본값) => 필터 검사 통과
+			out[i] = "Bearer " + signer.generateToken(id, "user" + id, Set.of(Role.USER), JwtProvider.TokenType.ACCESS, 0, "mac-" + id, 0);
+		}
+		return out;
+	}
+
+	// Authorization header 만 돌려주는 최소 구현
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, String[] authorization) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (p, method, args) -> {
+			if (authorization != null && method.getName().equals("getHeader") && "Authorization".equals(args[0])) {
+				return authorization[0];
+			}
+			Class<?> r = method.getReturnType();
+			if (r == boolean.class) return false;
+			if (r == int.class) return 0;
+			if (r == long.class) return 0L;
+			return null;
+		});
+	}
+
+}
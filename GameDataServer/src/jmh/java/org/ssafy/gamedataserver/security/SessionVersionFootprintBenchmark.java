@@ -0,0 +1,82 @@
+package org.ssafy.gamedataserver.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 처음 보는 mac 10M 개로 로그인했을 때 디바이스 버전이 남기는 heap 크기
+ *  - bounded : SessionVersionService (local, device-cache-size 고정) => 크기와 상관없이 table 크기만큼
+ *  - unbounded : 예전 방식 ConcurrentHashMap<String, Long> => mac 마다 entry 가 남는다.
+ * 결과의 retainedMb (GC 후 증가한 heap) 를 본다. 시간은 참고용
+ * ./gradlew jmh -Pjmh.includes=SessionVersionFootprint
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class SessionVersionFootprintBenchmark {
+
+	@Param({ "10000000" })
+	private int devices;
+
+	@Param({ "262144" })
+	private int deviceCacheSize;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public long retainedMb;
+
+		private long baseline;
+
+		@Setup(Level.Iteration)
+		public void baseline() {
+			baseline = usedHeap();
+		}
+
+		void record(Object keepAlive) {
+			retainedMb = (usedHeap() - baseline) >> 20;
+			// 측정 전에 GC 가 치우지 않도록
+			if (keepAlive == null) throw new IllegalStateException();
+		}
+	}
+
+	@Benchmark
+	public Object bounded(Footprint footprint) {
+		SessionVersionService versions = new SessionVersionService(null, null, "local", 14, 0, 1, deviceCacheSize);
+		for (int i = 0; i < devices; i++) versions.setDeviceVersion("mac-" + i);
+		footprint.record(versions);
+		return versions;
+	}
+
+	@Benchmark
+	public Object unbounded(Footprint footprint) {
+		ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+		for (int i = 0; i < devices; i++) versions.merge("mac-" + i, 1L, Long::sum);
+		footprint.record(versions);
+		return versions;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
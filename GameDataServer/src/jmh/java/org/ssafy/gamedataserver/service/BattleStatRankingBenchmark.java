@@ -0,0 +1,125 @@
+package org.ssafy.gamedataserver.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.ssafy.gamedataserver.dto.battle.MyRankDTO;
+import org.ssafy.gamedataserver.dto.battle.RankEntryDTO;
+import org.ssafy.gamedataserver.entity.battle.Weapon;
+import org.ssafy.gamedataserver.service.BattleStatRankingService.Metric;
+
+/**
+ * BattleStatRankingService 조회 (Redis sorted set) 와 전체 정렬 (ORDER BY 와 같은 방식) 비교
+ * users 명의 점수를 한 key 에 넣어두고 페이지 / 내 순위 조회 시간을 잰다.
+ * 로컬 Redis 필요 : ./gradlew jmh -Dredis.host=localhost -Dredis.port=6379
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BattleStatRankingBenchmark {
+
+	private static final org.ssafy.gamedataserver.entity.battle.Mode MODE = org.ssafy.gamedataserver.entity.battle.Mode.TEAM;
+	private static final Weapon WEAPON = Weapon.BOW;
+
+	@Param({ "1000000" })
+	private int users;
+
+	private LettuceConnectionFactory factory;
+	private StringRedisTemplate redis;
+	private BattleStatRankingService ranking;
+	private long[] scores;
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+				System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379)));
+		factory.afterPropertiesSet();
+		factory.start();
+		redis = new StringRedisTemplate(factory);
+		// 조회만 재므로 JdbcTemplate 은 쓰지 않는다.
+		ranking = new BattleStatRankingService(redis, null, false, false, 1);
+
+		String key = BattleStatRankingService.key(Metric.KILLS, MODE, WEAPON);
+		byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+		scores = new long[users];
+		SplittableRandom seed = new SplittableRandom(7);
+		for (int i = 0; i < users; i++) scores[i] = seed.nextInt(5000);
+
+		redis.delete(key);
+		int chunk = 10_000;
+		for (int from = 0; from < users; from += chunk) {
+			int start = from, end = Math.min(from + chunk, users);
+			redis.executePipelined((RedisCallback<Object>) c -> {
+				Set<Tuple> tuples = new HashSet<>(end - start);
+				for (int i = start; i < end; i++) {
+					tuples.add(new DefaultTuple(Long.toString(i + 1L).getBytes(StandardCharsets.UTF_8), (double) scores[i]));
+				}
+				c.zSetCommands().zAdd(rawKey, tuples);
+				return null;
+			});
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		redis.delete(BattleStatRankingService.key(Metric.KILLS, MODE, WEAPON));
+		factory.destroy();
+	}
+
+	@Benchmark
+	public List<RankEntryDTO> topPage() {
+		return ranking.page(Metric.KILLS, MODE, WEAPON, 0, 20);
+	}
+
+	@Benchmark
+	public List<RankEntryDTO> deepPage() {
+		return ranking.page(Metric.KILLS, MODE, WEAPON, users / 40, 20);
+	}
+
+	@Benchmark
+	public MyRankDTO myPercentile() {
+		return ranking.myRank(Metric.KILLS, MODE, WEAPON, random.nextInt(users) + 1L);
+	}
+
+	// ORDER BY kills DESC 후 내 위치를 찾는 방식 (요청마다 전체 정렬)
+	@Benchmark
+	public long fullSortRank() {
+		long mine = scores[random.nextInt(users)];
+		long[] sorted = scores.clone();
+		Arrays.sort(sorted);
+		// 내 점수보다 높은 사람 수 + 1
+		return users - firstIndex(sorted, mine + 1) + 1L;
+	}
+
+	private static int firstIndex(long[] sorted, long value) {
+		int lo = 0, hi = sorted.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] < value) lo = mid + 1; else hi = mid;
+		}
+		return lo;
+	}
+
+}
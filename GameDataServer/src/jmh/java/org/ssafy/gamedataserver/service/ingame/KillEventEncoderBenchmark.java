@@ -0,0 +1,47 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 기존 String.format 경로와 KillEventEncoder / KillEventBinaryFormat 비교
+ * ./gradlew jmh
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KillEventEncoderBenchmark {
+
+	private String matchId = "match-2f6a1c";
+	private String attackerId = "player-1024";
+	private String hitId = "hit-000981";
+	private int damage = 37;
+	private String weapon = "BOW";
+	private long ts = 1_700_000_000_000L;
+
+	@Benchmark
+	public byte[] stringFormat() {
+		// InGameService.saveRedis 의 기존 경로 (+ Redis 로 보내기 위한 UTF-8 변환)
+		String value = String.format("{\"matchId\":\"%s\",\"attackerId\":\"%s\", \"hitId\":\"%s\" ,\"damage\":%d, \"weapon\":\"%s\", \"ts\":%d}",
+				matchId, attackerId, hitId, damage, weapon, ts);
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] encoder() {
+		return KillEventEncoder.encode(matchId, attackerId, hitId, damage, weapon, ts);
+	}
+
+	@Benchmark
+	public byte[] binary() {
+		return KillEventBinaryFormat.encode(matchId, attackerId, hitId, damage, weapon, ts);
+	}
+
+}
@@ -2,21 +2,36 @@ package org.ssafy.gamedataserver.controller.battle;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.ssafy.gamedataserver.dto.ResponseDTO;
+import org.ssafy.gamedataserver.dto.battle.BattleStatAllDTO;
 import org.ssafy.gamedataserver.dto.battle.BattleStatModeDTO;
 import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.security.CustomUserDetails;
 import org.ssafy.gamedataserver.service.BattleStatService;
 
 @RestController
 @RequestMapping("/api/v1/battlestat")
 @RequiredArgsConstructor
 public class BattleStatController {
-    BattleStatService battleStatService;
+    private final BattleStatService battleStatService;
+
+    // 모든 Mode × Weapon + Mode / 전체 합계 (K/D, 승률) 를 한 번에
+    @GetMapping("/all")
+    public ResponseEntity<ResponseDTO<BattleStatAllDTO>> getAllStats(@AuthenticationPrincipal CustomUserDetails principal) {
+        if (principal == null) {
+            return ResponseDTO.unauthorized("login required");
+        }
+        return ResponseDTO.ok("Successfully got Battle Stat", battleStatService.getAllStats(principal.getId()));
+    }
 
     @GetMapping("/{mode}")
-    public ResponseEntity<ResponseDTO<BattleStatModeDTO>> getStat(@PathVariable Mode mode) {
-        BattleStatModeDTO battleStatModeDTO = battleStatService.getBattleStat(mode);
+    public ResponseEntity<ResponseDTO<BattleStatModeDTO>> getStat(@PathVariable Mode mode, @AuthenticationPrincipal CustomUserDetails principal) {
+        if (principal == null) {
+            return ResponseDTO.unauthorized("login required");
+        }
+        BattleStatModeDTO battleStatModeDTO = battleStatService.getBattleStat(principal.getId(), mode);
         return  ResponseDTO.ok("Successfully got Battle Stat", battleStatModeDTO);
     }
 }
@@ -0,0 +1,58 @@
+package org.ssafy.gamedataserver.controller.battle;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.ssafy.gamedataserver.dto.ResponseDTO;
+import org.ssafy.gamedataserver.dto.battle.MyRankDTO;
+import org.ssafy.gamedataserver.dto.battle.RankEntryDTO;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.entity.battle.Weapon;
+import org.ssafy.gamedataserver.security.CustomUserDetails;
+import org.ssafy.gamedataserver.service.BattleStatRankingService;
+import org.ssafy.gamedataserver.service.BattleStatRankingService.Metric;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/battlestat/ranking")
+@RequiredArgsConstructor
+public class BattleStatRankingController {
+    // 한 페이지 최대 인원
+    private static final int MAX_SIZE = 100;
+
+    private final BattleStatRankingService rankingService;
+
+    // Mode × Weapon 순위 (page 는 0 부터)
+    @GetMapping("/{mode}/{weapon}")
+    public ResponseEntity<ResponseDTO<List<RankEntryDTO>>> getRanking(@PathVariable Mode mode,
+                                                                    @PathVariable Weapon weapon,
+                                                                    @RequestParam(defaultValue = "KILLS") Metric metric,
+                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        if (page < 0) {
+            return ResponseDTO.badRequest("page must be >= 0");
+        }
+        if (size < 1 || size > MAX_SIZE) {
+            return ResponseDTO.badRequest("size must be 1 ~ " + MAX_SIZE);
+        }
+        return ResponseDTO.ok("Successfully got Ranking", rankingService.page(metric, mode, weapon, page, size));
+    }
+
+    // 내 순위 / 상위 %
+    @GetMapping("/{mode}/{weapon}/me")
+    public ResponseEntity<ResponseDTO<MyRankDTO>> getMyRank(@PathVariable Mode mode,
+                                                          @PathVariable Weapon weapon,
+                                                          @RequestParam(defaultValue = "KILLS") Metric metric,
+                                                          @AuthenticationPrincipal CustomUserDetails principal) {
+        if (principal == null) {
+            return ResponseDTO.unauthorized("login required");
+        }
+        MyRankDTO myRank = rankingService.myRank(metric, mode, weapon, principal.getId());
+        if (myRank == null) {
+            return ResponseDTO.notFound("not ranked yet");
+        }
+        return ResponseDTO.ok("Successfully got Rank", myRank);
+    }
+}
@@ -1,13 +1,20 @@
 package org.ssafy.gamedataserver.controller.ingame;
 
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.ssafy.gamedataserver.dto.ResponseDTO;
 import org.ssafy.gamedataserver.dto.ingame.DamageDto;
+import org.ssafy.gamedataserver.dto.ingame.GameInfoDto;
+import org.ssafy.gamedataserver.dto.ingame.KillBatchResultDto;
 import org.ssafy.gamedataserver.service.ingame.InGameService;
+import org.ssafy.gamedataserver.service.ingame.KillIngestAdmission;
+import org.ssafy.gamedataserver.service.ingame.KillIngestAdmission.Decision;
 
 import io.swagger.v3.oas.annotations.Operation;
 
@@ -16,11 +23,16 @@ import io.swagger.v3.oas.annotations.Operation;
 @RequestMapping("/api/ingame")
 public class InGameController {
 	
+	// 한 번의 batch 요청에 담을 수 있는 최대 이벤트 수
+	private static final int MAX_BATCH_SIZE = 1000;
+	
 	// Service Instance 주입
 	private final InGameService service;
+	private final KillIngestAdmission admission;
 	
-	public InGameController(InGameService service) {
+	public InGameController(InGameService service, KillIngestAdmission admission) {
 		this.service = service;
+		this.admission = admission;
 	}
 	
 	@GetMapping("/test")
@@ -32,22 +44,54 @@ public class InGameController {
 	@Operation(summary = "히트 데이터 Redis에 저장" , description = "Damage를 입히는 요청 -> Redis로 송신")
 	public ResponseEntity<?> postHit(@RequestBody DamageDto damageRequest){
 		
-		service.saveRedis(damageRequest);
+		// 단건도 batch 와 같은 필수 값 검사 => 400
+		String invalid = service.validate(damageRequest);
+		if (invalid != null) {
+			return ResponseDTO.badRequest(invalid);
+		}
+		
+		Decision decision = service.saveRedis(damageRequest);
 		
+		// buffer 과부하 => Retry-After 이후 재전송
+		if (decision == Decision.REJECT) {
+			return ResponseDTO.tooManyRequests("Kill buffer overloaded", null, admission.getRetryAfterSeconds());
+		}
+		// sampling 에서 제외된 이벤트 => 재전송하지 않는다.
+		if (decision == Decision.SAMPLED_OUT) {
+			return ResponseEntity.ok("Sampled out");
+		}
 		return ResponseEntity.ok("Saved in Redis");
 	}
 	
+	@PostMapping("/killSave/batch")
+	@Operation(summary = "히트 데이터 여러 건 Redis에 저장" , description = "Damage 이벤트 배열 -> Key 별 pipeline으로 Redis에 송신, 이벤트별 결과 반환")
+	public ResponseEntity<ResponseDTO<KillBatchResultDto>> postHitBatch(@RequestBody List<DamageDto> damageRequests){
+		
+		if (damageRequests == null || damageRequests.isEmpty()) {
+			return ResponseDTO.badRequest("No events");
+		}
+		if (damageRequests.size() > MAX_BATCH_SIZE) {
+			return ResponseDTO.badRequest("Too many events (max " + MAX_BATCH_SIZE + ")");
+		}
+		
+		KillBatchResultDto result = service.saveRedisBatch(damageRequests);
+		
+		// 과부하로 거절된 이벤트가 있으면 429 + Retry-After (나머지 결과도 함께 내려준다.)
+		if (result.hasOverloaded()) {
+			return ResponseDTO.tooManyRequests("Kill buffer overloaded", result, admission.getRetryAfterSeconds());
+		}
+		return ResponseDTO.ok("Saved in Redis", result);
+	}
+	
 	// Leaderboard
 	// 게임 전체에 대한 정보
 	// 최대 사용 무기
 	// 사용자 이용 시간 대
 	@GetMapping("/gameInfo")
 	@Operation(summary = "게임 전체 유저에 대한 정보" , description = " 게임 전체에서 최대 사용 무기, 사용자 주 사용 시간대 등 ")
-	public ResponseEntity<?> getHit(){
-		
-		service.getGameInfo();
+	public ResponseEntity<ResponseDTO<GameInfoDto>> getHit(){
 		
-		return null;
+		return ResponseDTO.ok(service.getGameInfo());
 	}
 	
 	
@@ -0,0 +1,89 @@
+package org.ssafy.gamedataserver.controller.ingame;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.ssafy.gamedataserver.dto.ResponseDTO;
+import org.ssafy.gamedataserver.dto.ingame.LeaderboardEntryDto;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.service.ingame.KillLeaderboardService;
+import org.ssafy.gamedataserver.service.ingame.KillLeaderboardService.Metric;
+import org.ssafy.gamedataserver.service.ingame.KillLeaderboardService.Scope;
+import org.ssafy.gamedataserver.service.ingame.KillLeaderboardService.Window;
+
+import io.swagger.v3.oas.annotations.Operation;
+
+@RestController
+@RequestMapping("/api/ingame/leaderboard")
+public class LeaderboardController {
+	
+	// 한 번에 조회할 수 있는 최대 인원
+	private static final int MAX_SIZE = 100;
+	private static final int MAX_AROUND = 50;
+	
+	private final KillLeaderboardService leaderboard;
+	
+	public LeaderboardController(KillLeaderboardService leaderboard) {
+		this.leaderboard = leaderboard;
+	}
+	
+	@GetMapping
+	@Operation(summary = "Kill 순위 상위 N명" , description = "metric(KILLS|DAMAGE), window(ALL|DAILY|WEEKLY), scope(GLOBAL|MODE|MATCH) 별 상위 N명")
+	public ResponseEntity<ResponseDTO<List<LeaderboardEntryDto>>> top(
+			@RequestParam(defaultValue = "KILLS") Metric metric,
+			@RequestParam(defaultValue = "ALL") Window window,
+			@RequestParam(defaultValue = "GLOBAL") Scope scope,
+			@RequestParam(required = false) String id,
+			@RequestParam(defaultValue = "0") int offset,
+			@RequestParam(defaultValue = "100") int n){
+		
+		String error = validate(window, scope, id, offset);
+		if (error != null) return ResponseDTO.badRequest(error);
+		if (n < 1 || n > MAX_SIZE) return ResponseDTO.badRequest("n must be 1 ~ " + MAX_SIZE);
+		
+		return ResponseDTO.ok(leaderboard.top(metric, window, scope, normalize(scope, id), offset, n));
+	}
+	
+	@GetMapping("/around")
+	@Operation(summary = "내 순위 ± k" , description = "attackerId 의 순위 앞뒤 k명 (순위에 없으면 빈 목록)")
+	public ResponseEntity<ResponseDTO<List<LeaderboardEntryDto>>> around(
+			@RequestParam String attackerId,
+			@RequestParam(defaultValue = "KILLS") Metric metric,
+			@RequestParam(defaultValue = "ALL") Window window,
+			@RequestParam(defaultValue = "GLOBAL") Scope scope,
+			@RequestParam(required = false) String id,
+			@RequestParam(defaultValue = "0") int offset,
+			@RequestParam(defaultValue = "5") int k){
+		
+		String error = validate(window, scope, id, offset);
+		if (error != null) return ResponseDTO.badRequest(error);
+		if (k < 0 || k > MAX_AROUND) return ResponseDTO.badRequest("k must be 0 ~ " + MAX_AROUND);
+		
+		return ResponseDTO.ok(leaderboard.around(metric, window, scope, normalize(scope, id), offset, attackerId, k));
+	}
+	
+	private static String validate(Window window, Scope scope, String id, int offset) {
+		if (offset < 0) return "offset must be >= 0";
+		if (scope == Scope.MATCH) {
+			if (id == null || id.isBlank()) return "id (matchId) is required";
+			if (window != Window.ALL) return "MATCH scope supports ALL window only";
+		}
+		if (scope == Scope.MODE && normalize(scope, id) == null) return "id must be one of SINGLE, TEAM, PRIVATE";
+		return null;
+	}
+	
+	// MODE scope 의 id 는 Mode 이름으로 맞춘다.
+	private static String normalize(Scope scope, String id) {
+		if (scope != Scope.MODE) return id;
+		if (id == null) return null;
+		for (Mode m : Mode.values()) {
+			if (m.name().equalsIgnoreCase(id.trim())) return m.name();
+		}
+		return null;
+	}
+	
+}
@@ -0,0 +1,60 @@
+package org.ssafy.gamedataserver.controller.ingame;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.ssafy.gamedataserver.dto.ResponseDTO;
+import org.ssafy.gamedataserver.dto.ingame.MatchSummaryDto;
+import org.ssafy.gamedataserver.service.ingame.MatchSummaryService;
+
+import io.swagger.v3.oas.annotations.Operation;
+
+@RestController
+@RequestMapping("/api/ingame/match")
+public class MatchController {
+	
+	// 전적 한 번에 조회할 수 있는 최대 match 수
+	private static final int MAX_HISTORY = 50;
+	
+	private final MatchSummaryService summaries;
+	
+	public MatchController(MatchSummaryService summaries) {
+		this.summaries = summaries;
+	}
+	
+	@PostMapping("/{matchId}/end")
+	@Operation(summary = "match 종료" , description = "남은 이벤트가 flush 되는 대로 match 요약을 만든다. (호출하지 않으면 idle 시간 뒤 자동 종료)")
+	public ResponseEntity<ResponseDTO<Void>> end(@PathVariable String matchId){
+		
+		if (matchId == null || matchId.isBlank()) return ResponseDTO.badRequest("matchId is blank");
+		summaries.end(matchId);
+		return ResponseDTO.ok("Match end accepted", null);
+	}
+	
+	@GetMapping("/{matchId}")
+	@Operation(summary = "match 요약" , description = "player 별 Kill / Damage / 무기별 내역, match 길이")
+	public ResponseEntity<ResponseDTO<MatchSummaryDto>> summary(@PathVariable String matchId){
+		
+		MatchSummaryDto summary = summaries.getSummary(matchId);
+		if (summary == null) return ResponseDTO.notFound("Match summary not ready");
+		return ResponseDTO.ok(summary);
+	}
+	
+	@GetMapping("/history")
+	@Operation(summary = "최근 전적" , description = "attackerId 가 참여한 최근 match 요약 (종료 시각 내림차순)")
+	public ResponseEntity<ResponseDTO<List<MatchSummaryDto>>> history(
+			@RequestParam String attackerId,
+			@RequestParam(defaultValue = "20") int size){
+		
+		if (attackerId.isBlank()) return ResponseDTO.badRequest("attackerId is blank");
+		if (size < 1 || size > MAX_HISTORY) return ResponseDTO.badRequest("size must be 1 ~ " + MAX_HISTORY);
+		return ResponseDTO.ok(summaries.getHistory(attackerId, size));
+	}
+	
+}
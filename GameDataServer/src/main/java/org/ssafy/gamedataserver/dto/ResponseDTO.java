@@ -3,6 +3,7 @@ package org.ssafy.gamedataserver.dto;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -65,5 +66,15 @@ public class ResponseDTO<T> {
     public static <T> ResponseEntity<ResponseDTO<T>> conflict(String message) {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(of(HttpStatus.CONFLICT, message));
     }
+    public static <T> ResponseEntity<ResponseDTO<T>> tooManyRequests(String message, T data, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(of(HttpStatus.TOO_MANY_REQUESTS, message, data));
+    }
+    public static <T> ResponseEntity<ResponseDTO<T>> serviceUnavailable(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(of(HttpStatus.SERVICE_UNAVAILABLE, message));
+    }
 
 }
@@ -0,0 +1,14 @@
+package org.ssafy.gamedataserver.dto.battle;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// 모든 Mode × Weapon 전적 (Mode 순서 고정, row 가 없는 칸은 0) + 전체 합계
+@Getter
+@AllArgsConstructor
+public class BattleStatAllDTO {
+    private List<BattleStatModeDTO> modes;
+    private StatTotalDTO total;
+}
@@ -1,5 +1,6 @@
 package org.ssafy.gamedataserver.dto.battle;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 import org.ssafy.gamedataserver.entity.battle.Mode;
@@ -11,4 +12,7 @@ public class BattleStatModeDTO {
     private WeaponDTO sword;
     private WeaponDTO bow;
     private WeaponDTO wand;
+    // 무기 합계 (전체 조회에서만)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private StatTotalDTO total;
 }
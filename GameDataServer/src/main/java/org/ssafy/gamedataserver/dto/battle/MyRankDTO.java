@@ -0,0 +1,15 @@
+package org.ssafy.gamedataserver.dto.battle;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MyRankDTO {
+    private long rank;
+    private long score;
+    // 순위에 있는 전체 인원
+    private long total;
+    // 상위 몇 % (rank / total * 100)
+    private double topPercent;
+}
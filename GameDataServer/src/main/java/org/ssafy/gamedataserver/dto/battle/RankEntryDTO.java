@@ -0,0 +1,13 @@
+package org.ssafy.gamedataserver.dto.battle;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RankEntryDTO {
+    // 같은 점수는 같은 순위
+    private long rank;
+    private long userId;
+    private long score;
+}
@@ -0,0 +1,29 @@
+package org.ssafy.gamedataserver.dto.battle;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// 여러 무기 / Mode 를 합친 전적 + K/D, 승률
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatTotalDTO {
+    private long wins;
+    private long losses;
+    private long kills;
+    private long deaths;
+    private long damage;
+    // deaths 가 0 이면 kills
+    private double kd;
+    // 0 ~ 1, 경기가 없으면 0
+    private double winRate;
+
+    public static StatTotalDTO of(long wins, long losses, long kills, long deaths, long damage) {
+        double kd = deaths == 0 ? kills : (double) kills / deaths;
+        double winRate = wins + losses == 0 ? 0 : (double) wins / (wins + losses);
+        return new StatTotalDTO(wins, losses, kills, deaths, damage, kd, winRate);
+    }
+}
@@ -1,13 +1,20 @@
 package org.ssafy.gamedataserver.dto.battle;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import org.ssafy.gamedataserver.entity.battle.Weapon;
 
 @Getter
 @Setter
 @Builder
+@AllArgsConstructor
 public class WeaponDTO {
+    // BattleStatRepository projection 에서 sword / bow / wand 를 나누는 용도
+    @JsonIgnore
+    private Weapon weapon;
     private long wins;
     private long losses;
     private long kills;
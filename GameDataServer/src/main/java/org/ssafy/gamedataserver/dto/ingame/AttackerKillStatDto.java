@@ -0,0 +1,22 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttackerKillStatDto {
+
+	private int rank;
+
+	private String attackerId;
+
+	private long kills;
+
+	private long damage;
+
+}
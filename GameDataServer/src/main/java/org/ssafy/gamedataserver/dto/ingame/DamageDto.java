@@ -28,5 +28,8 @@ public class DamageDto {
 	private Long ttlSeconds;
 	
 	private Long timeStamp;
+	
+	// SINGLE | TEAM | PRIVATE (없으면 mode 별 leaderboard 에 반영되지 않는다.)
+	private String mode;
 
 }
@@ -0,0 +1,30 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * /api/ingame/gameInfo 응답
+ * 모두 flush 시점에 갱신되는 rollup 에서 읽은 값이다.
+ **/
+@Getter
+@ToString
+@AllArgsConstructor
+public class GameInfoDto {
+
+	// Kill 수가 가장 많은 무기 (집계가 없으면 null)
+	private String mostUsedWeapon;
+
+	// 무기별 Kill 수 (내림차순)
+	private List<WeaponKillStatDto> weapons;
+
+	// 최근 hour-window-days 일 동안 Kill 이 많은 시간대 (내림차순)
+	private List<HourKillStatDto> peakHours;
+
+	// 누적 Kill 순위
+	private List<AttackerKillStatDto> leaderboard;
+
+}
@@ -0,0 +1,19 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+// 시간대(0 ~ 23시) 별 Kill 수
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class HourKillStatDto {
+
+	private int hour;
+
+	private long kills;
+
+}
@@ -0,0 +1,55 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * /killSave/batch 응답
+ * 요청 배열의 index 순서대로 이벤트별 저장 결과를 담는다.
+ * Client는 accepted == false 인 이벤트만 재전송하면 된다.
+ * (단, reason == "sampled out" 은 과부하로 버린 이벤트이므로 재전송하지 않는다.)
+ **/
+@Getter
+@ToString
+@AllArgsConstructor
+public class KillBatchResultDto {
+
+	// buffer 과부하로 거절 => Retry-After 이후 재전송
+	public static final String REASON_OVERLOADED = "overloaded";
+
+	// buffer 과부하 중 sampling 에서 제외 => 재전송하지 않는다.
+	public static final String REASON_SAMPLED_OUT = "sampled out";
+
+	private int accepted;
+
+	private int rejected;
+
+	private List<EventResult> results;
+
+	public boolean hasOverloaded() {
+		for (EventResult r : results) {
+			if (REASON_OVERLOADED.equals(r.getReason())) return true;
+		}
+		return false;
+	}
+
+	@Getter
+	@ToString
+	@AllArgsConstructor
+	public static class EventResult {
+
+		private int index;
+
+		private String hitId;
+
+		private boolean accepted;
+
+		// 거절 사유 (accepted == true 이면 null)
+		private String reason;
+
+	}
+
+}
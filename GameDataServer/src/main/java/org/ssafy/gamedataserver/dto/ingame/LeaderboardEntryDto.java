@@ -0,0 +1,21 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDto {
+
+	// 1 부터 시작
+	private long rank;
+
+	private String attackerId;
+
+	private long score;
+
+}
@@ -0,0 +1,25 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class MatchPlayerStatDto {
+
+	private String attackerId;
+
+	private long kills;
+
+	private long damage;
+
+	// 무기별 Kill 수 (내림차순)
+	private List<WeaponKillStatDto> weapons;
+
+}
@@ -0,0 +1,41 @@
+package org.ssafy.gamedataserver.dto.ingame;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * match_summaries 의 match 하나에 대한 요약 (MatchSummaryService)
+ * 시각은 epoch millis, 첫 / 마지막 이벤트 ts 기준이다.
+ **/
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class MatchSummaryDto {
+
+	private String matchId;
+
+	// Mode 이름 (기록되지 않았으면 null)
+	private String mode;
+
+	private long startedAt;
+
+	private long endedAt;
+
+	private long durationMs;
+
+	private long kills;
+
+	private long damage;
+
+	// Kill 수 내림차순
+	private List<MatchPlayerStatDto> players;
+
+	// 무기별 Kill 수 (내림차순)
+	private List<WeaponKillStatDto> weapons;
+
+}
@@ -1,9 +1,20 @@
 package org.ssafy.gamedataserver.dto.ingame;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
 public class WeaponKillStatDto {
 	
 	private String weapon;
 	
-	private int kills;
+	private long kills;
+	
+	private long damage;
 	
 }
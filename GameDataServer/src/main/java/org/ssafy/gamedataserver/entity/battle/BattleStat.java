@@ -4,8 +4,10 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.ssafy.gamedataserver.entity.user.User;
 
+// (user_id, mode, weapon) unique key : prod 는 db/schema-mysql.sql 이 만든다. (ddl-auto=validate 는 제약을 만들지 않음)
 @Entity(name = "BattleStat")
-@Table(name = "battle_stats")
+@Table(name = "battle_stats", uniqueConstraints = @UniqueConstraint(
+        name = "uk_battle_stats_user_mode_weapon", columnNames = {"user_id", "mode", "weapon"}))
 @Getter
 @Setter
 @Builder
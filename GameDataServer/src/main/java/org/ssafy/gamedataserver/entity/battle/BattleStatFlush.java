@@ -0,0 +1,25 @@
+package org.ssafy.gamedataserver.entity.battle;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// BattleStatAccumulator 가 battle_stats 에 반영한 delta batch (같은 batch 를 두 번 더하지 않기 위한 기록)
+// prod (ddl-auto=validate) table 은 db/schema-mysql.sql 이 만든다.
+@Entity(name = "BattleStatFlush")
+@Table(name = "battle_stat_flushes")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BattleStatFlush {
+    @Id
+    @Column(length = 36)
+    private String id;
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+    @Column
+    private int rowCount;
+}
@@ -1,6 +1,9 @@
 package org.ssafy.gamedataserver.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.ssafy.gamedataserver.dto.battle.WeaponDTO;
 import org.ssafy.gamedataserver.entity.battle.Mode;
 import org.ssafy.gamedataserver.entity.battle.BattleStat;
 
@@ -10,4 +13,25 @@ import java.util.Optional;
 public interface BattleStatRepository extends JpaRepository<BattleStat,Long> {
     Optional<List<BattleStat>> findAllByUserIdAndMode(long userId, Mode mode);
     boolean existsByUserId(long userId);
+
+    // User / BattleStat entity 를 만들지 않고 무기별 row 를 바로 WeaponDTO 로 읽는다. (user_id FK 만 사용, join 없음)
+    @Query("select new org.ssafy.gamedataserver.dto.battle.WeaponDTO(b.weapon, b.wins, b.losses, b.kills, b.deaths, b.damage) " +
+            "from BattleStat b where b.user.id = :userId and b.mode = :mode")
+    List<WeaponDTO> findWeaponStats(@Param("userId") long userId, @Param("mode") Mode mode);
+
+    // Mode × Weapon 칸 + Mode 합계 (weapon = null) + 전체 합계 (mode = null) 를 한 번의 GROUP BY ... WITH ROLLUP 으로 읽는다.
+    @Query(value = "SELECT mode AS mode, weapon AS weapon, CAST(SUM(wins) AS SIGNED) AS wins, CAST(SUM(losses) AS SIGNED) AS losses, " +
+            "CAST(SUM(kills) AS SIGNED) AS kills, CAST(SUM(deaths) AS SIGNED) AS deaths, CAST(SUM(damage) AS SIGNED) AS damage " +
+            "FROM battle_stats WHERE user_id = :userId GROUP BY mode, weapon WITH ROLLUP", nativeQuery = true)
+    List<StatSumView> sumAllStats(@Param("userId") long userId);
+
+    interface StatSumView {
+        String getMode();
+        String getWeapon();
+        Long getWins();
+        Long getLosses();
+        Long getKills();
+        Long getDeaths();
+        Long getDamage();
+    }
 }
@@ -1,11 +1,32 @@
 package org.ssafy.gamedataserver.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.ssafy.gamedataserver.entity.user.User;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // 프로필 칸만 PK 로 읽는다. (User entity / user_roles join 없음)
+    @Query("select u.id as id, u.username as username, u.nickname as nickname from User u where u.id = :id")
+    Optional<ProfileView> findProfileById(@Param("id") long id);
+
+    // 닉네임만 바로 UPDATE (SELECT + user_roles join 없이, @UpdateTimestamp 대신 updatedAt 직접 갱신)
+    @Transactional
+    @Modifying
+    @Query("update User u set u.nickname = :nickname, u.updatedAt = :now where u.id = :id")
+    int updateNickname(@Param("id") long id, @Param("nickname") String nickname, @Param("now") LocalDateTime now);
+
+    interface ProfileView {
+        Long getId();
+        String getUsername();
+        String getNickname();
+    }
 }
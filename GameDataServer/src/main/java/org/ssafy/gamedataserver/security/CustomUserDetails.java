@@ -2,13 +2,16 @@ package org.ssafy.gamedataserver.security;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.ssafy.gamedataserver.entity.user.Role;
 import org.ssafy.gamedataserver.entity.user.User;
 
 import java.util.Collection;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,6 +33,18 @@ public class CustomUserDetails implements UserDetails {
         );
     }
 
+    /**
+     * 이 요청의 인증 사용자 (JwtAuthenticationFilter 가 토큰에서 만든 principal, DB 조회 없음)
+     * controller 는 @AuthenticationPrincipal CustomUserDetails 로 받는다.
+     **/
+    public static Optional<CustomUserDetails> current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails principal) {
+            return Optional.of(principal);
+        }
+        return Optional.empty();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         // ROLE_ 접두어로 매핑 (예: Role.USER -> "ROLE_USER")
@@ -26,19 +26,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            if (jwtProvider.isTokenValid(token) && !jwtProvider.isRefreshToken(token)) {
+            // 서명 검사 / claim 파싱은 한 번만 (최근 토큰은 JwtProvider cache)
+            VerifiedToken verified = jwtProvider.verify(token);
+            if (verified != null && !verified.isRefresh()) {
                 // 한 아이디 한 곳 로그인 검사 재료
-                long id = jwtProvider.getUserId(token);
-                long tokenVer = jwtProvider.getVersion(token);
+                long id = verified.userId();
+                long tokenVer = verified.ver();
                 long serverVer = sessionVersionService.getUserVersion(id);
                 // 한 디바이스 한번 로그인 검사 재료
-                String mac = jwtProvider.getMac(token);
-                long deviceVer = jwtProvider.getDeviceVersion(token);
+                String mac = verified.mac();
+                long deviceVer = verified.deviceVer();
                 long serverDeviceVer = sessionVersionService.getDeviceVersion(mac);
                 // 검사
                 if (tokenVer == serverVer && deviceVer == serverDeviceVer) {
-                    String username = jwtProvider.getUsername(token);
-                    Set<Role> roleSet = jwtProvider.getRoles(token).stream().map(Role::valueOf).collect(Collectors.toSet());
+                    String username = verified.username();
+                    Set<Role> roleSet = verified.roles().stream().map(Role::valueOf).collect(Collectors.toSet());
                     User user = User.builder()
                             .id(id)
                             .roles(roleSet)
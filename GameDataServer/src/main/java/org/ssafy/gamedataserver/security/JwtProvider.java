@@ -2,6 +2,7 @@ package org.ssafy.gamedataserver.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -24,15 +25,22 @@ public class JwtProvider {
     private static final String CLAIM_TOKEN_TYPE = "token_type";
 
     private final Key key;
+    // 불변 / thread-safe => 하나를 만들어서 계속 쓴다.
+    private final JwtParser parser;
+    // 최근에 검증한 토큰 (서명 / claim 파싱 생략)
+    private final VerifiedTokenCache verifiedCache;
     private final long accessMinutes;
     private final long refreshDays;
 
     public JwtProvider(
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.access-token-minutes}") long accessMinutes,
-            @Value("${jwt.refresh-token-days}") long refreshDays
+            @Value("${jwt.refresh-token-days}") long refreshDays,
+            @Value("${jwt.verified-cache.max-size:100000}") int verifiedCacheSize
     ) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedCache = new VerifiedTokenCache(verifiedCacheSize);
         this.accessMinutes = accessMinutes;
         this.refreshDays = refreshDays;
     }
@@ -67,25 +75,39 @@ public class JwtProvider {
                 .compact();
     }
 
-    // 토큰 유효성 검사
-    public boolean isTokenValid(String token) {
+    /**
+     * 토큰을 한 번 검증해서 claim 을 모두 꺼낸다. (유효하지 않으면 null)
+     * 최근에 검증한 토큰은 cache 에서 꺼내고, 만료 시각이 지난 항목은 다시 검증한다. (=> 만료로 null)
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) return null;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return verifyOrThrow(token);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
 
+    /**
+     * verify 와 같지만 실패 이유를 예외로 던진다. (만료 => ExpiredJwtException, 그 외 => JwtException)
+     */
+    public VerifiedToken verifyOrThrow(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedCache.get(token, now);
+        if (cached != null) return cached;
+        VerifiedToken verified = VerifiedToken.from(getClaims(token));
+        verifiedCache.put(token, verified, now);
+        return verified;
+    }
+
+    // 토큰 유효성 검사
+    public boolean isTokenValid(String token) {
+        return verify(token) != null;
+    }
+
     // 클레임 확인
     private Claims getClaims(String token) {
-        return Jwts.parserBuilder().
-                setSigningKey(key).
-                build()
-                .parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     // 아이디
@@ -0,0 +1,169 @@
+package org.ssafy.gamedataserver.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt (matches / encode) 전용 thread pool
+ *
+ * BCrypt 한 번이 CPU 50~100ms 라서 요청 thread 에서 하면 로그인이 몰릴 때 Tomcat thread 를 다 잡아먹는다.
+ * (kill 저장 같은 가벼운 API 까지 뒤에서 기다리게 된다.)
+ *  - thread 수 고정 (auth.password.threads, 0 이면 CPU 수의 절반) + 대기열 고정 (auth.password.queue-capacity)
+ *  - 대기열이 가득 차면 바로 RejectedExecutionException => 호출하는 쪽에서 503 + Retry-After
+ *  - 요청 thread 는 작업을 넘기고 바로 돌아간다. (AuthController 는 CompletableFuture 를 반환)
+ *  - 이 pool 에서는 encode / matches 만 한다. BCrypt 다음의 Redis / JWT / DB 작업은
+ *    continueOnIo() 로 별도의 I/O pool 에서 이어서 한다. => BCrypt thread 가 I/O 를 기다리지 않는다.
+ *    I/O pool 도 thread 수 (auth.password.io-threads) 와 대기열 (auth.password.io-queue-capacity) 이 고정이고,
+ *    가득 차면 onRejected (503) 로 끝낸다. => BCrypt 를 통과한 작업도 끝없이 쌓이지 않는다.
+ * metric : auth.password.hash (op 별 계산 시간), auth.password.queue.wait, auth.password.queue.depth,
+ *          auth.password.active, auth.password.rejected, auth.password.io.queue.depth, auth.password.io.rejected
+ **/
+@Slf4j
+@Component
+public class PasswordHashExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor ioExecutor;
+    private final long retryAfterSeconds;
+
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    private final Counter ioRejectedCounter;
+
+    public PasswordHashExecutor(PasswordEncoder passwordEncoder, MeterRegistry meters,
+                                @Value("${auth.password.threads:0}") int threads,
+                                @Value("${auth.password.queue-capacity:200}") int queueCapacity,
+                                @Value("${auth.password.io-threads:16}") int ioThreads,
+                                @Value("${auth.password.io-queue-capacity:200}") int ioQueueCapacity,
+                                @Value("${auth.password.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = newPool(size, queueCapacity, "password-hash-");
+        this.ioExecutor = newPool(Math.max(1, ioThreads), ioQueueCapacity, "password-io-");
+
+        this.matchesTimer = Timer.builder("auth.password.hash").tag("op", "matches")
+                .description("BCrypt 계산 시간").register(meters);
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("op", "encode")
+                .description("BCrypt 계산 시간").register(meters);
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait")
+                .description("BCrypt 작업이 대기열에서 기다린 시간").register(meters);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size())
+                .description("대기 중인 BCrypt 작업 수").register(meters);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("계산 중인 BCrypt 작업 수").register(meters);
+        this.rejectedCounter = Counter.builder("auth.password.rejected")
+                .description("대기열이 가득 차서 거절한 BCrypt 작업 수").register(meters);
+        Gauge.builder("auth.password.io.queue.depth", ioExecutor, e -> e.getQueue().size())
+                .description("BCrypt 다음 작업 중 대기 중인 수").register(meters);
+        this.ioRejectedCounter = Counter.builder("auth.password.io.rejected")
+                .description("I/O 대기열이 가득 차서 거절한 BCrypt 다음 작업 수").register(meters);
+    }
+
+    // thread 수 / 대기열 고정, 가득 차면 RejectedExecutionException
+    private static ThreadPoolExecutor newPool(int size, int queueCapacity, String namePrefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, namePrefix + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * BCrypt 결과 (stage) 를 받아서 이어지는 작업 (Redis / JWT / DB) 을 I/O pool 에서 돌린다.
+     * (thenApplyAsync 는 executor 가 거절하면 결과 future 가 끝나지 않으므로 직접 넘긴다.)
+     * @param onRejected I/O 대기열이 가득 찬 경우의 결과 (503)
+     **/
+    public <T, R> CompletableFuture<R> continueOnIo(CompletableFuture<T> stage, Function<T, R> next, Supplier<R> onRejected) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            try {
+                ioExecutor.execute(() -> {
+                    try {
+                        result.complete(next.apply(value));
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                ioRejectedCounter.increment();
+                result.complete(onRejected.get());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @throws RejectedExecutionException 대기열이 가득 찬 경우 (바로 던진다.)
+     **/
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @throws RejectedExecutionException 대기열이 가득 찬 경우 (바로 던진다.)
+     **/
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                queueWaitTimer.record(start - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    future.complete(work.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        ioExecutor.shutdown();
+    }
+
+}
@@ -0,0 +1,174 @@
+package org.ssafy.gamedataserver.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그인 세션 기록 (session:{jti}, user:{username}:sessions) 을 모아서 Redis 에 쓴다.
+ *
+ * 로그인 응답 전에 Redis 를 기다리지 않도록 record 는 메모리 대기열에 넣기만 한다.
+ *  - writer thread 하나가 대기열에서 꺼내고, linger-ms 만큼 더 모은 뒤 batch-size 개씩 pipeline 한 번으로 쓴다.
+ *    (record 하나당 SET EX + SADD + EXPIRE)
+ *  - 대기열이 가득 차면 버리고 auth.session.dropped 만 올린다. (세션 기록은 조회용이라 로그인은 그대로 성공)
+ *  - Redis 쓰기 실패도 같은 방식 (auth.session.failed, 로그만 남김)
+ *  - 종료 시 남은 record 를 마저 쓴다.
+ **/
+@Slf4j
+@Component
+public class RedisSessionWriter {
+
+    private final StringRedisTemplate redis;
+    private final ArrayBlockingQueue<SessionRecord> queue;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long ttlSeconds;
+
+    private final Counter recordedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public RedisSessionWriter(StringRedisTemplate redis, MeterRegistry meters,
+                              @Value("${auth.session.queue-capacity:10000}") int queueCapacity,
+                              @Value("${auth.session.batch-size:200}") int batchSize,
+                              @Value("${auth.session.linger-ms:5}") long lingerMs,
+                              @Value("${auth.session.ttl-minutes:60}") long ttlMinutes) {
+        this.redis = redis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMs = Math.max(0, lingerMs);
+        this.ttlSeconds = TimeUnit.MINUTES.toSeconds(ttlMinutes);
+
+        Gauge.builder("auth.session.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("Redis 에 쓰기를 기다리는 세션 기록 수").register(meters);
+        this.recordedCounter = Counter.builder("auth.session.recorded").register(meters);
+        this.droppedCounter = Counter.builder("auth.session.dropped")
+                .description("대기열이 가득 차서 버린 세션 기록 수").register(meters);
+        this.failedCounter = Counter.builder("auth.session.failed")
+                .description("Redis 쓰기에 실패한 세션 기록 수").register(meters);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "redis-session-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 로그인 성공 시 호출 (Redis 호출 없음)
+     * @return 대기열에 넣었으면 true, 가득 차서 버렸으면 false
+     **/
+    public boolean record(String username, long ver, String ip, String ua) {
+        // 참고: 현재 JWT에는 jti 미포함
+        SessionRecord record = new SessionRecord(UUID.randomUUID().toString(), username, ver, ip, ua);
+        if (queue.offer(record)) return true;
+        droppedCounter.increment();
+        return false;
+    }
+
+    private void run() {
+        List<SessionRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SessionRecord first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // 조금 더 모아서 한 번에 (이미 batch 만큼 쌓였으면 바로)
+                if (running && lingerMs > 0 && queue.size() < batchSize - 1) Thread.sleep(lingerMs);
+            } catch (InterruptedException e) {
+                // 종료 : 남은 record 를 마저 쓰고 끝낸다.
+                running = false;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) continue;
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<SessionRecord> batch) {
+        try {
+            redis.executePipelined((RedisCallback<Object>) c -> {
+                for (SessionRecord r : batch) {
+                    byte[] userSessionKey = ("user:" + r.username + ":sessions").getBytes(StandardCharsets.UTF_8);
+                    c.stringCommands().setEx(("session:" + r.jti).getBytes(StandardCharsets.UTF_8), ttlSeconds,
+                            json(r).getBytes(StandardCharsets.UTF_8));
+                    c.setCommands().sAdd(userSessionKey, r.jti.getBytes(StandardCharsets.UTF_8));
+                    c.keyCommands().expire(userSessionKey, ttlSeconds);
+                }
+                return null;
+            });
+            recordedCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.warn("Failed to write {} Redis sessions: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    // {"user":..,"ver":..,"exp":..(분),"ip":..,"ua":..}
+    private String json(SessionRecord r) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"user\":");
+        quote(sb, r.username);
+        sb.append(",\"ver\":").append(r.ver);
+        sb.append(",\"exp\":").append(ttlSeconds / 60);
+        sb.append(",\"ip\":");
+        quote(sb, r.ip);
+        sb.append(",\"ua\":");
+        quote(sb, r.ua);
+        return sb.append('}').toString();
+    }
+
+    // User-Agent 에 따옴표 등이 있어도 JSON 이 깨지지 않도록
+    private static void quote(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // interrupt 하지 않는다. (쓰는 중인 pipeline 이 끊기지 않도록, poll 은 1초 안에 돌아온다.)
+        running = false;
+        if (worker != null) worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private record SessionRecord(String jti, String username, long ver, String ip, String ua) {
+    }
+
+}
@@ -1,28 +1,150 @@
 package org.ssafy.gamedataserver.security;
 
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
-// 여러 디바이스에서 동시 접속을 막기 위한 서비스이다
+/**
+ * 여러 디바이스에서 동시 접속을 막기 위한 서비스이다
+ *
+ * 버전은 Redis 에 둔다. (session.version.store=redis, 서버 여러 대 / 재시작에도 같은 값)
+ *  - set : 새 버전 발급 + EXPIRE(refresh token 수명) + PUBLISH 를 script 한 번으로 실행
+ *    버전은 사용자 / 디바이스 구분 없이 한 번만 발급되는 번호 (seq) 이다. key 가 만료된 뒤 다시 발급해도 예전 토큰과 겹치지 않는다.
+ *  - get : 서버 메모리 near cache 에서 읽는다. (JwtAuthenticationFilter hot path 에서 Redis 호출 없음)
+ *    없거나 near-cache-ttl 이 지났으면 Redis GET 으로 채운다.
+ *  - 다른 서버가 올린 버전은 pub/sub 메시지로 near cache 에 바로 반영한다.
+ *    버전은 줄어들지 않으므로 늦게 도착한 값은 max 로 무시한다.
+ *  - 메시지를 놓쳐도 near-cache-ttl 뒤에는 Redis 값으로 맞춰진다.
+ * session.version.store=local 이면 서버 메모리에만 둔다. (서버 1대 / 테스트용, refresh token 수명 동안 보관)
+ *
+ * near cache 는 크기가 정해진 SessionVersionTable 이다. (user-cache-size, device-cache-size)
+ * 처음 보는 mac 으로 로그인을 계속 시도해도 메모리가 늘지 않고, 오래된 칸부터 덮어쓴다.
+ * local 에서 밀려난 디바이스 / 사용자는 버전 0 으로 보이므로 예전 토큰은 거절된다. (다시 로그인)
+ **/
+@Slf4j
 @Service
 public class SessionVersionService {
-    private final ConcurrentHashMap<Long, Long> userVersions = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> deviceVersions = new ConcurrentHashMap<>();
+    public static final String USER_KEY_PREFIX = "session:ver:user:";
+    public static final String DEVICE_KEY_PREFIX = "session:ver:device:";
+    public static final String SEQ_KEY = "session:ver:seq";
+    public static final String CHANNEL = "session:ver:changed";
+
+    private static final String USER = "u";
+    private static final String DEVICE = "d";
+
+    // 새 버전 (seq, 지금 값보다 작으면 지금 값 + 1) => 보관 기간 => "{type}|{ver}|{id}" 발행
+    private static final String ISSUE_LUA =
+            "local cur = tonumber(redis.call('GET', KEYS[1]) or '0') " +
+            "local v = redis.call('INCR', KEYS[2]) " +
+            "if v <= cur then v = cur + 1 redis.call('SET', KEYS[2], v) end " +
+            "redis.call('SET', KEYS[1], v, 'EX', ARGV[1]) " +
+            "redis.call('PUBLISH', ARGV[2], ARGV[3] .. '|' .. v .. '|' .. ARGV[4]) " +
+            "return v";
+    private static final DefaultRedisScript<Long> ISSUE_SCRIPT = new DefaultRedisScript<>(ISSUE_LUA, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer container;
+    private final boolean distributed;
+    private final long retentionSeconds;
+
+    private final SessionVersionTable userVersions;
+    private final SessionVersionTable deviceVersions;
+    // local 발급 번호 (재시작 전 토큰과 겹치지 않도록 시각에서 시작)
+    private final AtomicLong localSeq = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public SessionVersionService(StringRedisTemplate redis, RedisMessageListenerContainer container,
+                                 @Value("${session.version.store:redis}") String store,
+                                 @Value("${jwt.refresh-token-days}") long refreshDays,
+                                 @Value("${session.version.near-cache-ttl-ms:30000}") long nearCacheTtlMillis,
+                                 @Value("${session.version.user-cache-size:262144}") int userCacheSize,
+                                 @Value("${session.version.device-cache-size:262144}") int deviceCacheSize) {
+        this.redis = redis;
+        this.container = container;
+        this.distributed = !"local".equalsIgnoreCase(store.trim());
+        this.retentionSeconds = Duration.ofDays(refreshDays).toSeconds();
+        long ttlMillis = distributed ? nearCacheTtlMillis : Duration.ofDays(refreshDays).toMillis();
+        this.userVersions = new SessionVersionTable(userCacheSize, ttlMillis);
+        this.deviceVersions = new SessionVersionTable(deviceCacheSize, ttlMillis);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!distributed) return;
+        container.addMessageListener((message, pattern) -> onChanged(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
 
     public long getUserVersion(Long id) {
-        return userVersions.getOrDefault(id, 0L);
+        return get(userVersions, id, USER_KEY_PREFIX + id);
     }
 
     public long setUserVersion(Long id) {
-        // 동시성 문제로 get, set 하면 안되고 merge 함수를 사용함.
-        return userVersions.merge(id, 1L, Long::sum);
+        return issue(userVersions, id, USER, Long.toString(id), USER_KEY_PREFIX + id);
     }
 
     public long getDeviceVersion(String deviceId) {
-        return deviceVersions.getOrDefault(deviceId, 0L);
+        if (deviceId == null) return 0L;
+        return get(deviceVersions, SessionVersionTable.hash(deviceId), DEVICE_KEY_PREFIX + deviceId);
     }
+
     public long setDeviceVersion(String deviceId) {
-        return deviceVersions.merge(deviceId, 1L, Long::sum);
+        String id = deviceId == null ? "" : deviceId;
+        return issue(deviceVersions, SessionVersionTable.hash(id), DEVICE, id, DEVICE_KEY_PREFIX + id);
+    }
+
+    private long get(SessionVersionTable table, long key, String redisKey) {
+        long now = System.currentTimeMillis();
+        long cached = table.get(key, now, false);
+        if (cached != SessionVersionTable.MISSING) return cached;
+        if (!distributed) return 0L;
+        String value;
+        try {
+            value = redis.opsForValue().get(redisKey);
+        } catch (RuntimeException e) {
+            // Redis 장애 : 갖고 있던 값이 있으면 그 값으로 계속 검사한다.
+            long stale = table.get(key, now, true);
+            if (stale == SessionVersionTable.MISSING) throw e;
+            log.warn("Failed to read session version {}: {}", redisKey, e.getMessage());
+            return stale;
+        }
+        return table.put(key, value == null ? 0L : Long.parseLong(value), now);
+    }
+
+    private long issue(SessionVersionTable table, long key, String type, String rawId, String redisKey) {
+        long now = System.currentTimeMillis();
+        if (!distributed) {
+            return table.put(key, localSeq.incrementAndGet(), now);
+        }
+        Long version = redis.execute(ISSUE_SCRIPT, List.of(redisKey, SEQ_KEY),
+                Long.toString(retentionSeconds), CHANNEL, type, rawId);
+        return table.put(key, version == null ? 0L : version, now);
+    }
+
+    // "{type}|{ver}|{id}" (mac 에 '|' 가 있어도 id 는 마지막이므로 그대로 남는다.)
+    private void onChanged(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3) return;
+        try {
+            long version = Long.parseLong(parts[1]);
+            long now = System.currentTimeMillis();
+            if (USER.equals(parts[0])) {
+                userVersions.put(Long.parseLong(parts[2]), version, now);
+            } else if (DEVICE.equals(parts[0])) {
+                deviceVersions.put(SessionVersionTable.hash(parts[2]), version, now);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid session version message: {}", message);
+        }
     }
+
 }
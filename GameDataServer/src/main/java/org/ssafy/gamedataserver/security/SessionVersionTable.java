@@ -0,0 +1,112 @@
+package org.ssafy.gamedataserver.security;
+
+/**
+ * 세션 버전 저장용 고정 크기 table (long key => long version)
+ *
+ * 객체 없이 long 배열 3개 (key, version, 기록 시각) 만 쓴다. => 한 칸 24 byte, 크기는 생성 시 고정
+ *  - 4-way set associative : key 의 hash 로 set 을 고르고, set 안에서 찾는다.
+ *    set 이 가득 차면 가장 오래 기록된 칸을 덮어쓴다. (evict)
+ *  - ttl 이 지난 칸은 없는 것으로 본다. (get 결과 MISSING)
+ *  - set 묶음마다 lock 을 따로 둔다. (ConcurrentHashMap 처럼 읽기 / 쓰기가 서로 다른 사용자끼리는 겹치지 않음)
+ * 문자열 key (디바이스 mac) 는 hash(String) 으로 64bit key 를 만들어서 넣는다.
+ **/
+final class SessionVersionTable {
+
+    static final long MISSING = -1L;
+
+    private static final int WAYS = 4;
+    private static final int STRIPES = 256;
+
+    private final long[] keys;
+    private final long[] versions;
+    // 기록 시각 (0 = 빈 칸)
+    private final long[] stamps;
+    private final Object[] locks = new Object[STRIPES];
+    private final int setMask;
+    private final long ttlMillis;
+
+    SessionVersionTable(int maxEntries, long ttlMillis) {
+        int sets = Integer.highestOneBit(Math.max(STRIPES, (Math.max(1, maxEntries) + WAYS - 1) / WAYS));
+        this.keys = new long[sets * WAYS];
+        this.versions = new long[sets * WAYS];
+        this.stamps = new long[sets * WAYS];
+        this.setMask = sets - 1;
+        this.ttlMillis = ttlMillis;
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+    }
+
+    /**
+     * @param allowExpired true 면 ttl 이 지난 값도 돌려준다. (Redis 장애 시 마지막 값으로 검사)
+     * @return 버전, 없으면 MISSING
+     **/
+    long get(long key, long now, boolean allowExpired) {
+        int set = set(key);
+        int base = set * WAYS;
+        synchronized (locks[set & (STRIPES - 1)]) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (stamps[i] != 0 && keys[i] == key) {
+                    return allowExpired || now - stamps[i] < ttlMillis ? versions[i] : MISSING;
+                }
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * 버전은 줄어들지 않는다 => 이미 더 큰 값이 있으면 그 값을 두고 시각만 갱신한다.
+     * @return 저장된 버전
+     **/
+    long put(long key, long version, long now) {
+        int set = set(key);
+        int base = set * WAYS;
+        synchronized (locks[set & (STRIPES - 1)]) {
+            int victim = base;
+            for (int i = base; i < base + WAYS; i++) {
+                if (stamps[i] != 0 && keys[i] == key) {
+                    versions[i] = Math.max(versions[i], version);
+                    stamps[i] = now;
+                    return versions[i];
+                }
+                // 빈 칸 / 가장 오래된 칸
+                if (stamps[i] < stamps[victim]) victim = i;
+            }
+            keys[victim] = key;
+            versions[victim] = version;
+            stamps[victim] = now;
+            return version;
+        }
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private int set(long key) {
+        return (int) (mix(key) & setMask);
+    }
+
+    // 연속된 user id 도 set 에 고르게 퍼지도록 섞는다. (murmur3 fmix64)
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 문자열 key 의 64bit hash (FNV-1a)
+     * 두 mac 이 같은 hash 가 되더라도 버전은 서버 전체에서 한 번만 발급되므로
+     * 다른 디바이스의 토큰이 통과하지는 않는다. (그 디바이스가 다시 로그인해야 할 뿐)
+     **/
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.ssafy.gamedataserver.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.List;
+
+// 서명 / 만료 검사를 통과한 토큰의 claim (요청마다 한 번만 파싱)
+public record VerifiedToken(
+        long userId,
+        String username,
+        List<String> roles,
+        JwtProvider.TokenType tokenType,
+        long ver,
+        String mac,
+        long deviceVer,
+        long expiresAtMillis
+) {
+    @SuppressWarnings("unchecked")
+    static VerifiedToken from(Claims claims) {
+        String type = claims.get("token_type", String.class);
+        Number ver = claims.get("ver", Number.class);
+        Number deviceVer = claims.get("deviceVer", Number.class);
+        List<String> roles = claims.get("roles", List.class);
+        return new VerifiedToken(
+                Long.parseLong(claims.getSubject()),
+                claims.get("username", String.class),
+                roles == null ? List.of() : List.copyOf(roles),
+                "REFRESH".equals(type) ? JwtProvider.TokenType.REFRESH : JwtProvider.TokenType.ACCESS,
+                ver == null ? 0L : ver.longValue(),
+                claims.get("mac", String.class),
+                deviceVer == null ? 0L : deviceVer.longValue(),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime()
+        );
+    }
+
+    public boolean isRefresh() {
+        return tokenType == JwtProvider.TokenType.REFRESH;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
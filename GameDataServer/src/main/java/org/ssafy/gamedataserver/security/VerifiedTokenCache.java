@@ -0,0 +1,75 @@
+package org.ssafy.gamedataserver.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 최근에 검증한 토큰의 claim cache
+ *  - key : 토큰 SHA-256 의 앞 128bit (토큰 문자열을 들고 있지 않는다.)
+ *  - 토큰 만료 시각이 지나면 꺼낼 때 지운다.
+ *  - max-size 를 넘으면 만료된 것부터 지우고, 그래도 넘으면 임의의 항목을 지워서 90% 로 맞춘다.
+ **/
+class VerifiedTokenCache {
+
+    private record Key(long hi, long lo) {
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int maxSize;
+    private final ConcurrentHashMap<Key, VerifiedToken> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.entries = new ConcurrentHashMap<>(Math.min(this.maxSize, 1 << 16));
+    }
+
+    VerifiedToken get(String token, long nowMillis) {
+        if (maxSize == 0) return null;
+        Key key = key(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached == null) return null;
+        if (cached.isExpired(nowMillis)) {
+            entries.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    void put(String token, VerifiedToken verified, long nowMillis) {
+        if (maxSize == 0) return;
+        if (entries.size() >= maxSize) evict(nowMillis);
+        entries.put(key(token), verified);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict(long nowMillis) {
+        if (entries.size() < maxSize) return;
+        entries.values().removeIf(t -> t.isExpired(nowMillis));
+        int target = maxSize - maxSize / 10;
+        Iterator<Key> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static Key key(String token) {
+        MessageDigest sha = SHA256.get();
+        ByteBuffer digest = ByteBuffer.wrap(sha.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new Key(digest.getLong(), digest.getLong());
+    }
+}
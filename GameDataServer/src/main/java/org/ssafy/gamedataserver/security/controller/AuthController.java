@@ -1,7 +1,8 @@
 package org.ssafy.gamedataserver.security.controller;
 
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import io.jsonwebtoken.ExpiredJwtException;
@@ -9,9 +10,7 @@ import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.ssafy.gamedataserver.dto.ResponseDTO;
 import org.ssafy.gamedataserver.dto.user.LoginDTO;
@@ -23,8 +22,12 @@ import org.ssafy.gamedataserver.repository.UserRepository;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.ssafy.gamedataserver.security.JwtProvider;
+import org.ssafy.gamedataserver.security.PasswordHashExecutor;
+import org.ssafy.gamedataserver.security.RedisSessionWriter;
 import org.ssafy.gamedataserver.security.SessionVersionService;
+import org.ssafy.gamedataserver.security.VerifiedToken;
 import org.ssafy.gamedataserver.security.dto.RefreshTokenDTO;
+import org.ssafy.gamedataserver.service.BattleStatProvisioner;
 
 @Slf4j
 @RestController
@@ -33,56 +36,83 @@ import org.ssafy.gamedataserver.security.dto.RefreshTokenDTO;
 public class AuthController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    // BCrypt 는 요청 thread 가 아닌 전용 pool 에서 (가득 차면 503)
+    private final PasswordHashExecutor passwordHashExecutor;
     private final JwtProvider jwtProvider;
     private final SessionVersionService sessionVersionService;
-    private final StringRedisTemplate redis;
+    private final RedisSessionWriter redisSessionWriter;
+    private final BattleStatProvisioner battleStatProvisioner;
 
     /* ====================== Sign Up ====================== */
 
     @PostMapping("/signup")
-    public ResponseEntity<ResponseDTO<Void>> signup(@RequestBody UserSignUpDTO req) {
+    public CompletableFuture<ResponseEntity<ResponseDTO<Void>>> signup(@RequestBody UserSignUpDTO req) {
         final String username = req.getUsername();
         final String rawPassword = req.getPassword();
         final String nickname = req.getNickname();
 
         if (userRepository.existsByUsername(username)) {
-            return ResponseDTO.conflict("ID already exist");
+            return CompletableFuture.completedFuture(ResponseDTO.conflict("ID already exist"));
         }
         if (rawPassword == null || rawPassword.length() < 8) {
-            return ResponseDTO.badRequest("Password is has to be longer than 8 letters");
+            return CompletableFuture.completedFuture(ResponseDTO.badRequest("Password is has to be longer than 8 letters"));
         }
 
-        final String encoded = passwordEncoder.encode(rawPassword);
-        final User user = User.builder()
-                .username(username)
-                .password(encoded)
-                .nickname(nickname)
-                .roles(Collections.singleton(Role.USER))
-                .build();
-
-        userRepository.save(user);
-        return ResponseDTO.ok("Welcome!", null);
+        final CompletableFuture<String> encoded;
+        try {
+            encoded = passwordHashExecutor.encode(rawPassword);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+        // 저장은 BCrypt pool 이 아닌 I/O executor 에서 한다.
+        return passwordHashExecutor.continueOnIo(encoded, password -> {
+            final User user = User.builder()
+                    .username(username)
+                    .password(password)
+                    .nickname(nickname)
+                    .roles(Collections.singleton(Role.USER))
+                    .build();
+
+            userRepository.save(user);
+            // 전적 기본 row 는 다른 가입자와 묶어서 한 번에 만든다.
+            battleStatProvisioner.enqueue(user.getId());
+            return ResponseDTO.ok("Welcome!", null);
+        }, this::busy);
     }
 
     /* ====================== Login ====================== */
 
     @PostMapping("/login")
-    public ResponseEntity<ResponseDTO<LoginDTO>> login(@RequestBody UserDTO req, HttpServletRequest httpReq) {
+    public CompletableFuture<ResponseEntity<ResponseDTO<LoginDTO>>> login(@RequestBody UserDTO req, HttpServletRequest httpReq) {
         final String username = req.getUsername();
         final String password = req.getPassword();
         final String mac = req.getMac();
-
-        // 한 디바이스 1세션: 디바이스 버전 증가
-        final long deviceVer = sessionVersionService.setDeviceVersion(mac);
+        // 요청 정보는 요청 thread 에서 미리 꺼낸다.
+        final String ip = httpReq.getRemoteAddr();
+        final String ua = httpReq.getHeader("User-Agent");
 
         final Optional<User> op = userRepository.findByUsername(username);
-        if (op.isEmpty() || !passwordEncoder.matches(password, op.get().getPassword())) {
-            return ResponseDTO.unauthorized("Wrong ID or Password");
+        if (op.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseDTO.unauthorized("Wrong ID or Password"));
         }
 
         final User user = op.get();
+        final CompletableFuture<Boolean> matches;
+        try {
+            matches = passwordHashExecutor.matches(password, user.getPassword());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+        // 나머지 (Redis 버전 발급 / 토큰 생성) 는 BCrypt pool 이 아닌 I/O executor 에서 이어서 한다.
+        return passwordHashExecutor.continueOnIo(matches, ok -> ok
+                ? issueTokens(user, username, mac, ip, ua)
+                : ResponseDTO.unauthorized("Wrong ID or Password"), this::busy);
+    }
+
+    private ResponseEntity<ResponseDTO<LoginDTO>> issueTokens(User user, String username, String mac, String ip, String ua) {
         final long id = user.getId();
+        // 한 디바이스 1세션: 디바이스 버전 증가 (비밀번호 확인 후에만, 실패한 시도는 버전을 남기지 않는다.)
+        final long deviceVer = sessionVersionService.setDeviceVersion(mac);
         final long ver = sessionVersionService.setUserVersion(id);     // 한 계정 1세션
         final Set<Role> roles = user.getRoles();
 
@@ -97,8 +127,8 @@ public class AuthController {
         dto.setAccessToken(accessToken);
         dto.setRefreshToken(refreshToken);
 
-        // Redis 세션 기록
-        writeRedisSession(username, ver, httpReq);
+        // Redis 세션 기록 (대기열에 넣기만 하고, writer 가 모아서 pipeline 으로 쓴다.)
+        redisSessionWriter.record(username, ver, ip, ua);
 
         return ResponseDTO.ok("Login successful", dto);
     }
@@ -112,64 +142,44 @@ public class AuthController {
             return ResponseDTO.badRequest("No Refresh Token");
         }
 
+        // 서명 / 만료 검사와 claim 파싱은 한 번만
+        final VerifiedToken verified;
         try {
-            if (!jwtProvider.isRefreshToken(refreshToken)) {
-                return ResponseDTO.unauthorized("Is Not Refresh Token");
-            }
-
-            final Long id = jwtProvider.getUserId(refreshToken);
-            final String username = jwtProvider.getUsername(refreshToken);
-            final Set<Role> roles = jwtProvider.getRoles(refreshToken).stream().map(Role::valueOf).collect(Collectors.toSet());
-            final long tokenVer = jwtProvider.getVersion(refreshToken);
-            final long serverVer = sessionVersionService.getUserVersion(id);
-
-            final String mac = jwtProvider.getMac(refreshToken);
-            if (mac == null || mac.isBlank()) {
-                return ResponseDTO.unauthorized("No MAC id");
-            }
-            final long tokenDeviceVer = jwtProvider.getDeviceVersion(refreshToken);
-            final long serverDeviceVer = sessionVersionService.getDeviceVersion(mac);
-
-            if (tokenVer != serverVer) {
-                return ResponseDTO.unauthorized("Somebody Log in with your ID");
-            }
-            if (tokenDeviceVer != serverDeviceVer) {
-                return ResponseDTO.unauthorized("You had login with other account");
-            }
-
-            final String newAccess = jwtProvider.generateToken(id, username, roles, JwtProvider.TokenType.ACCESS, serverVer, mac, serverDeviceVer);
-            return ResponseDTO.ok("Got a New accessToken", Map.of("accessToken", newAccess));
-
+            verified = jwtProvider.verifyOrThrow(refreshToken);
         } catch (ExpiredJwtException e) {
             return ResponseDTO.unauthorized("Refresh Token Expired");
-        } catch (JwtException e) {
+        } catch (JwtException | IllegalArgumentException e) {
             return ResponseDTO.unauthorized("Refresh Token Not Valid");
         }
-    }
-
-    /* ====================== Redis ====================== */
+        if (!verified.isRefresh()) {
+            return ResponseDTO.unauthorized("Is Not Refresh Token");
+        }
 
-    private void writeRedisSession(String username, long ver, HttpServletRequest req) {
-        try {
-            final long expireMinutes = 60;
-            final String jti = UUID.randomUUID().toString(); // 참고: 현재 JWT에는 jti 미포함
+        final long id = verified.userId();
+        final String username = verified.username();
+        final Set<Role> roles = verified.roles().stream().map(Role::valueOf).collect(Collectors.toSet());
+        final long tokenVer = verified.ver();
+        final long serverVer = sessionVersionService.getUserVersion(id);
 
-            final String ip = req.getRemoteAddr();
-            final String ua = req.getHeader("User-Agent");
+        final String mac = verified.mac();
+        if (mac == null || mac.isBlank()) {
+            return ResponseDTO.unauthorized("No MAC id");
+        }
+        final long tokenDeviceVer = verified.deviceVer();
+        final long serverDeviceVer = sessionVersionService.getDeviceVersion(mac);
 
-            final String sessionKey = "session:" + jti;
-            final String sessionJson = String.format(
-                    "{\"user\":\"%s\",\"ver\":%d,\"exp\":%d,\"ip\":\"%s\",\"ua\":\"%s\"}",
-                    username, ver, expireMinutes, ip, ua
-            );
+        if (tokenVer != serverVer) {
+            return ResponseDTO.unauthorized("Somebody Log in with your ID");
+        }
+        if (tokenDeviceVer != serverDeviceVer) {
+            return ResponseDTO.unauthorized("You had login with other account");
+        }
 
-            redis.opsForValue().set(sessionKey, sessionJson, Duration.ofMinutes(expireMinutes));
+        final String newAccess = jwtProvider.generateToken(id, username, roles, JwtProvider.TokenType.ACCESS, serverVer, mac, serverDeviceVer);
+        return ResponseDTO.ok("Got a New accessToken", Map.of("accessToken", newAccess));
+    }
 
-            final String userSessionKey = "user:" + username + ":sessions";
-            redis.opsForSet().add(userSessionKey, jti);
-            redis.expire(userSessionKey, Duration.ofMinutes(expireMinutes));
-        } catch (Exception e) {
-            log.warn("Failed to write Redis session: {}", e.getMessage());
-        }
+    private <T> ResponseEntity<ResponseDTO<T>> busy() {
+        return ResponseDTO.serviceUnavailable("Too many login requests, try again later", passwordHashExecutor.getRetryAfterSeconds());
     }
 }
@@ -2,8 +2,7 @@ package org.ssafy.gamedataserver.security.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.ssafy.gamedataserver.dto.ResponseDTO;
@@ -12,9 +11,13 @@ import org.ssafy.gamedataserver.dto.user.UserNicknameDTO;
 import org.ssafy.gamedataserver.dto.user.UserSignUpDTO;
 import org.ssafy.gamedataserver.entity.user.User;
 import org.ssafy.gamedataserver.repository.UserRepository;
+import org.ssafy.gamedataserver.security.CustomUserDetails;
+import org.ssafy.gamedataserver.service.UserProfileCache;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
+// 인증 사용자는 JWT principal (@AuthenticationPrincipal) 로 받는다. (요청마다 users 조회 없음)
 @RestController
 @RequestMapping("/api/v1/user")
 @RequiredArgsConstructor
@@ -22,37 +25,39 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserProfileCache userProfileCache;
 
-    // 내 정보 조회
+    // 내 정보 조회 (cache hit 이면 DB 조회 없음)
     @GetMapping("/me")
-    public ResponseEntity<ResponseDTO<UserMeDTO>> getMe() {
-        Optional<User> op = getCurrentUser();
+    public ResponseEntity<ResponseDTO<UserMeDTO>> getMe(@AuthenticationPrincipal CustomUserDetails principal) {
+        if (principal == null) {
+            return ResponseDTO.notFound("user does not exist");
+        }
+        Optional<UserProfileCache.Profile> op = userProfileCache.get(principal.getId());
         if (op.isEmpty()) {
             return ResponseDTO.notFound("user does not exist");
         }
-        User user = op.get();
         UserMeDTO dto = new UserMeDTO();
-        dto.setUsername(user.getUsername());
-        dto.setNickname(user.getNickname());
+        dto.setUsername(op.get().username());
+        dto.setNickname(op.get().nickname());
         return ResponseDTO.ok("Got user Information Successfully!", dto);
     }
 
-    // 닉네임 변경
+    // 닉네임 변경 (UPDATE 한 번 후 cache 무효화)
     @PutMapping("/nickname")
-    public ResponseEntity<ResponseDTO<Void>> changeNickname(@RequestBody UserNicknameDTO req) {
-        Optional<User> op = getCurrentUser();
-        if (op.isEmpty()) {
+    public ResponseEntity<ResponseDTO<Void>> changeNickname(@AuthenticationPrincipal CustomUserDetails principal,
+                                                            @RequestBody UserNicknameDTO req) {
+        if (principal == null || userRepository.updateNickname(principal.getId(), req.getNickname(), LocalDateTime.now()) == 0) {
             return ResponseDTO.notFound("user does not exist");
         }
-        User user = op.get();
-        user.setNickname(req.getNickname());
-        userRepository.save(user);
+        userProfileCache.invalidate(principal.getId());
         return ResponseDTO.ok("nickname changed successfully", null);
     }
 
     // 게스트 → 일반 유저 전환
     @PostMapping("/guestasuser")
-    public ResponseEntity<ResponseDTO<Void>> guestToSignupUser(@RequestBody UserSignUpDTO req) {
+    public ResponseEntity<ResponseDTO<Void>> guestToSignupUser(@AuthenticationPrincipal CustomUserDetails principal,
+                                                               @RequestBody UserSignUpDTO req) {
         // 가드: 아이디 중복 / 비밀번호 길이
         if (userRepository.existsByUsername(req.getUsername())) {
             return ResponseDTO.conflict("ID already exist");
@@ -61,7 +66,7 @@ public class UserController {
             return ResponseDTO.badRequest("Password is has to be longer than 8 letters");
         }
 
-        Optional<User> op = getCurrentUser();
+        Optional<User> op = principal == null ? Optional.empty() : userRepository.findById(principal.getId());
         if (op.isEmpty()) {
             return ResponseDTO.notFound("user does not exist");
         }
@@ -70,13 +75,7 @@ public class UserController {
         user.setPassword(passwordEncoder.encode(req.getPassword()));
         user.setNickname(req.getNickname());
         userRepository.save(user);
+        userProfileCache.invalidate(user.getId());
         return ResponseDTO.ok("guest account created successfully", null);
     }
-
-    // 현재 인증 사용자 조회
-    private Optional<User> getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || auth.getName() == null) return Optional.empty();
-        return userRepository.findByUsername(auth.getName());
-    }
 }
@@ -0,0 +1,308 @@
+package org.ssafy.gamedataserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.entity.battle.Weapon;
+import org.ssafy.gamedataserver.service.ingame.KillEvent;
+import org.ssafy.gamedataserver.service.ingame.KillEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * BattleStat write-behind 누적기
+ *
+ * kill_events 에 새로 들어간 이벤트를 (userId, Mode, Weapon) 별 delta 로 Redis hash 에 HINCRBY 해두고
+ * flush-interval-ms 마다 (또는 dirty row 가 max-dirty 를 넘으면) 한 번에 MySQL 에 더한다.
+ *  - battle_stats : row 마다 UPDATE ... SET kills = kills + ?, damage = damage + ? (JDBC batch 한 번)
+ *    row 가 없으면 BattleStatProvisioner 로 기본 row 를 만든 뒤 다시 UPDATE (users 에 있는 사용자만)
+ *
+ * 재시작 / 중복 반영 방지
+ *  - delta 는 Redis 에 있으므로 서버가 재시작해도 남는다.
+ *  - flush 시작 시 pending hash 를 batch id 와 함께 flushing hash 로 RENAME 한다. (이후 들어오는 delta 는 새 pending 으로)
+ *  - MySQL 에는 같은 transaction 에서 battle_stat_flushes 에 batch id 를 먼저 INSERT 한다.
+ *    이미 있으면 (이전 flush 가 commit 후 Redis 정리 전에 죽은 경우) 더하지 않고 flushing hash 만 지운다.
+ *  - flushing hash 가 남아 있으면 새 batch 를 만들지 않고 그 batch 부터 다시 반영한다.
+ **/
+@Slf4j
+@Service
+public class BattleStatAccumulator implements KillEventListener {
+
+    public static final String PENDING_KILLS_KEY = "game:prod:battlestat:pending:kills";
+    public static final String PENDING_DAMAGE_KEY = "game:prod:battlestat:pending:damage";
+    public static final String FLUSHING_KILLS_KEY = "game:prod:battlestat:flushing:kills";
+    public static final String FLUSHING_DAMAGE_KEY = "game:prod:battlestat:flushing:damage";
+    public static final String FLUSHING_ID_KEY = "game:prod:battlestat:flushing:id";
+
+    private static final byte[] PENDING_KILLS = PENDING_KILLS_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PENDING_DAMAGE = PENDING_DAMAGE_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final List<String> KEYS = List.of(PENDING_KILLS_KEY, PENDING_DAMAGE_KEY,
+            FLUSHING_KILLS_KEY, FLUSHING_DAMAGE_KEY, FLUSHING_ID_KEY);
+
+    // 반영 중인 batch 가 있으면 그 id, 없으면 pending => flushing 으로 옮기고 새 id (ARGV[1]), 옮길 것이 없으면 false
+    private static final String SWAP_LUA =
+            "local cur = redis.call('GET', KEYS[5]) " +
+            "if cur then return cur end " +
+            "if redis.call('EXISTS', KEYS[1], KEYS[2]) == 0 then return false end " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('RENAME', KEYS[1], KEYS[3]) end " +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('RENAME', KEYS[2], KEYS[4]) end " +
+            "redis.call('SET', KEYS[5], ARGV[1]) " +
+            "return ARGV[1]";
+    // batch id 가 그대로일 때만 flushing hash 를 지운다.
+    private static final String DONE_LUA =
+            "if redis.call('GET', KEYS[5]) ~= ARGV[1] then return 0 end " +
+            "redis.call('DEL', KEYS[3], KEYS[4], KEYS[5]) " +
+            "return 1";
+    private static final DefaultRedisScript<String> SWAP_SCRIPT = new DefaultRedisScript<>(SWAP_LUA, String.class);
+    private static final DefaultRedisScript<Long> DONE_SCRIPT = new DefaultRedisScript<>(DONE_LUA, Long.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE battle_stats SET kills = kills + ?, damage = damage + ? WHERE user_id = ? AND mode = ? AND weapon = ?";
+    private static final String MARK_SQL =
+            "INSERT INTO battle_stat_flushes (id, applied_at, row_count) VALUES (?, ?, ?)";
+    private static final String PRUNE_SQL =
+            "DELETE FROM battle_stat_flushes WHERE applied_at < ?";
+
+    private final StringRedisTemplate redis;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final BattleStatCache cache;
+    private final BattleStatProvisioner provisioner;
+    private final BattleStatRankingService ranking;
+    private final Mode defaultMode;
+    private final long flushIntervalMs;
+    private final long maxDirty;
+    private final Duration markerRetention;
+
+    private volatile long lastFlushMs = System.currentTimeMillis();
+
+    private final Counter foldedCounter;
+    private final Counter skippedCounter;
+    private final Counter rowsCounter;
+
+    public BattleStatAccumulator(StringRedisTemplate redis, JdbcTemplate jdbc, TransactionTemplate tx, BattleStatCache cache,
+                                 BattleStatProvisioner provisioner, BattleStatRankingService ranking, MeterRegistry meters,
+                                 @Value("${game.battlestat.default-mode:}") String defaultMode,
+                                 @Value("${game.battlestat.flush-interval-ms:10000}") long flushIntervalMs,
+                                 @Value("${game.battlestat.max-dirty:5000}") long maxDirty,
+                                 @Value("${game.battlestat.marker-retention-days:7}") long markerRetentionDays) {
+        this.redis = redis;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.cache = cache;
+        this.provisioner = provisioner;
+        this.ranking = ranking;
+        this.defaultMode = parseMode(defaultMode);
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxDirty = Math.max(1, maxDirty);
+        this.markerRetention = Duration.ofDays(markerRetentionDays);
+        this.foldedCounter = Counter.builder("battlestat.folded").register(meters);
+        this.skippedCounter = Counter.builder("battlestat.skipped").register(meters);
+        this.rowsCounter = Counter.builder("battlestat.flushed.rows").register(meters);
+    }
+
+    /**
+     * 새로 들어간 kill 이벤트를 (userId, Mode, Weapon) 별로 합쳐서 한 번의 pipeline 으로 HINCRBY 한다.
+     * attackerId 가 users.id 가 아니거나 Mode / Weapon 을 알 수 없는 이벤트는 건너뛴다.
+     **/
+    @Override
+    public void onInserted(List<KillEvent> events) {
+        Map<String, long[]> deltas = new HashMap<>();
+        int folded = 0;
+        for (KillEvent event : events) {
+            String field = field(event);
+            if (field == null) {
+                skippedCounter.increment();
+                continue;
+            }
+            long[] d = deltas.computeIfAbsent(field, k -> new long[2]);
+            d[0]++;
+            d[1] += event.damage();
+            folded++;
+        }
+        if (deltas.isEmpty()) return;
+
+        redis.executePipelined((RedisCallback<Object>) conn -> {
+            for (Map.Entry<String, long[]> e : deltas.entrySet()) {
+                byte[] f = e.getKey().getBytes(StandardCharsets.UTF_8);
+                conn.hashCommands().hIncrBy(PENDING_KILLS, f, e.getValue()[0]);
+                conn.hashCommands().hIncrBy(PENDING_DAMAGE, f, e.getValue()[1]);
+            }
+            return null;
+        });
+        foldedCounter.increment(folded);
+    }
+
+    // userId:MODE:WEAPON
+    private String field(KillEvent event) {
+        Long userId = parseUserId(event.attackerId());
+        Mode mode = event.mode() == null ? defaultMode : parseMode(event.mode());
+        Weapon weapon = parseWeapon(event.weapon());
+        if (userId == null || mode == null || weapon == null) return null;
+        return userId + ":" + mode.name() + ":" + weapon.name();
+    }
+
+    /**
+     * flush-interval-ms 가 지났거나 dirty row 가 max-dirty 이상이면 반영한다.
+     **/
+    @Scheduled(fixedDelayString = "${game.battlestat.check-ms:1000}")
+    public void tick() {
+        try {
+            boolean due = System.currentTimeMillis() - lastFlushMs >= flushIntervalMs;
+            if (!due) {
+                Long dirty = redis.opsForHash().size(PENDING_KILLS_KEY);
+                due = dirty != null && dirty >= maxDirty;
+            }
+            if (due) flush();
+        } catch (Exception e) {
+            // flushing hash 가 남아 있으므로 다음 주기에 같은 batch 로 다시 반영한다.
+            log.warn("[BATTLE STAT] flush failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 반영 중이던 batch 가 있으면 그것부터, 없으면 지금까지 쌓인 delta 를 새 batch 로 반영한다.
+     * @return 반영한 row 수 (이미 반영된 batch 였거나 delta 가 없으면 0)
+     **/
+    public int flush() {
+        lastFlushMs = System.currentTimeMillis();
+        String batchId = redis.execute(SWAP_SCRIPT, KEYS, UUID.randomUUID().toString());
+        if (batchId == null) return 0;
+
+        Map<Object, Object> kills = redis.opsForHash().entries(FLUSHING_KILLS_KEY);
+        Map<Object, Object> damage = redis.opsForHash().entries(FLUSHING_DAMAGE_KEY);
+        // kills / damage HINCRBY 사이에 옮겨졌을 수 있으므로 두 hash 의 field 를 모두 본다.
+        Set<Object> fields = new HashSet<>(kills.keySet());
+        fields.addAll(damage.keySet());
+        List<Row> rows = new ArrayList<>(fields.size());
+        for (Object f : fields) {
+            Row row = Row.parse((String) f, parse(kills.get(f)), parse(damage.get(f)));
+            if (row != null) rows.add(row);
+        }
+
+        Integer applied = apply(batchId, rows);
+        redis.execute(DONE_SCRIPT, KEYS, batchId);
+        if (applied == null) {
+            log.info("[BATTLE STAT] batch {} was already applied", batchId);
+            return 0;
+        }
+        rowsCounter.increment(applied);
+        // 바뀐 사용자의 순위를 갱신하고 조회 cache 를 지운다. (모든 서버)
+        Set<Long> userIds = new HashSet<>();
+        for (Row row : rows) userIds.add(row.userId);
+        try {
+            ranking.refresh(userIds);
+        } catch (Exception e) {
+            // 다음 변경 때 다시 반영된다.
+            log.warn("[BATTLE STAT] ranking refresh failed: {}", e.getMessage());
+        }
+        cache.invalidate(userIds);
+        return applied;
+    }
+
+    // 한 transaction : batch 기록 => UPDATE batch => 없는 row INSERT. 이미 기록된 batch 면 null
+    private Integer apply(String batchId, List<Row> rows) {
+        try {
+            return tx.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                jdbc.update(MARK_SQL, batchId, Timestamp.valueOf(now), rows.size());
+                if (rows.isEmpty()) return 0;
+
+                int[][] updated = jdbc.batchUpdate(UPDATE_SQL, rows, rows.size(), this::bindUpdate);
+                List<Row> missing = new ArrayList<>();
+                for (int i = 0; i < rows.size(); i++) {
+                    if (updated[0][i] == 0) missing.add(rows.get(i));
+                }
+                if (!missing.isEmpty()) {
+                    // 기본 row 를 만든 뒤 (INSERT IGNORE, 같은 transaction) 다시 더한다.
+                    Set<Long> userIds = new HashSet<>();
+                    for (Row r : missing) userIds.add(r.userId);
+                    provisioner.provision(userIds);
+                    jdbc.batchUpdate(UPDATE_SQL, missing, missing.size(), this::bindUpdate);
+                }
+                jdbc.update(PRUNE_SQL, Timestamp.valueOf(now.minus(markerRetention)));
+                return rows.size();
+            });
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    private void bindUpdate(PreparedStatement ps, Row r) throws SQLException {
+        ps.setLong(1, r.kills);
+        ps.setLong(2, r.damage);
+        ps.setLong(3, r.userId);
+        ps.setString(4, r.mode.name());
+        ps.setString(5, r.weapon.name());
+    }
+
+    private static Long parseUserId(String attackerId) {
+        if (attackerId == null) return null;
+        try {
+            return Long.parseLong(attackerId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Mode parseMode(String s) {
+        if (s == null || s.isBlank()) return null;
+        for (Mode m : Mode.values()) {
+            if (m.name().equalsIgnoreCase(s.trim())) return m;
+        }
+        return null;
+    }
+
+    private static Weapon parseWeapon(String s) {
+        if (s == null) return null;
+        for (Weapon w : Weapon.values()) {
+            if (w.name().equalsIgnoreCase(s.trim())) return w;
+        }
+        return null;
+    }
+
+    private static long parse(Object value) {
+        if (value == null) return 0L;
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    // battle_stats 한 row 에 더할 값
+    private record Row(long userId, Mode mode, Weapon weapon, long kills, long damage) {
+        static Row parse(String field, long kills, long damage) {
+            String[] parts = field.split(":");
+            if (parts.length != 3) return null;
+            Long userId = parseUserId(parts[0]);
+            Mode mode = parseMode(parts[1]);
+            Weapon weapon = parseWeapon(parts[2]);
+            if (userId == null || mode == null || weapon == null) return null;
+            return new Row(userId, mode, weapon, kills, damage);
+        }
+    }
+
+}
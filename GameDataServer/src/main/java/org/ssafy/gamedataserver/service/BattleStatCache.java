@@ -0,0 +1,102 @@
+package org.ssafy.gamedataserver.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.ssafy.gamedataserver.dto.battle.BattleStatModeDTO;
+import org.ssafy.gamedataserver.dto.battle.StatTotalDTO;
+import org.ssafy.gamedataserver.dto.battle.WeaponDTO;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사용자별 BattleStat 조회 결과 cache (서버 메모리, InvalidatingCache)
+ *  - key = (userId, Mode), 최대 max-users 명 × Mode 수 만큼 들고 있고 넘으면 가장 오래 안 읽힌 항목부터 버린다.
+ *  - battle_stats 를 바꾸는 쪽 (BattleStatAccumulator 등) 이 invalidate 를 부르면
+ *    Redis pub/sub 으로 모든 서버의 해당 사용자 항목을 지운다.
+ *  - pub/sub 메시지를 놓친 경우를 위해 ttl-seconds 가 지나면 다시 읽는다.
+ *  - 조회 중에 같은 key 가 invalidate 되면 그 조회 결과는 넣지 않는다. (key 별 version 비교)
+ *  - DTO 는 mutable 이므로 넣을 때 / 꺼낼 때 복사한다.
+ **/
+@Component
+public class BattleStatCache {
+
+    public static final String INVALIDATE_CHANNEL = "game:prod:battlestat:invalidate";
+
+    private final RedisMessageListenerContainer container;
+    private final InvalidatingCache<Key, BattleStatModeDTO> cache;
+
+    public BattleStatCache(StringRedisTemplate redis, RedisMessageListenerContainer container,
+                           @Value("${game.battlestat.cache.max-users:10000}") int maxUsers,
+                           @Value("${game.battlestat.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.container = container;
+        this.cache = new InvalidatingCache<>("BATTLE STAT", redis, INVALIDATE_CHANNEL,
+                Math.max(1, maxUsers) * Mode.values().length, TimeUnit.SECONDS.toMillis(ttlSeconds),
+                BattleStatCache::copy, Key::format, Key::parse);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        cache.subscribe(container);
+    }
+
+    // 조회 전에 읽어두고 put 에 넘긴다.
+    public long version(long userId, Mode mode) {
+        return cache.version(new Key(userId, mode));
+    }
+
+    public BattleStatModeDTO get(long userId, Mode mode) {
+        return cache.get(new Key(userId, mode));
+    }
+
+    public void put(long userId, Mode mode, BattleStatModeDTO stat, long readVersion) {
+        cache.put(new Key(userId, mode), stat, readVersion);
+    }
+
+    /**
+     * 이 서버와 다른 서버의 userIds 항목 (모든 Mode) 을 지운다.
+     **/
+    public void invalidate(Collection<Long> userIds) {
+        List<Key> keys = new ArrayList<>(userIds.size() * Mode.values().length);
+        for (Long id : userIds) {
+            for (Mode mode : Mode.values()) keys.add(new Key(id, mode));
+        }
+        cache.invalidate(keys);
+    }
+
+    private static BattleStatModeDTO copy(BattleStatModeDTO src) {
+        BattleStatModeDTO dto = new BattleStatModeDTO();
+        dto.setMode(src.getMode());
+        dto.setSword(copy(src.getSword()));
+        dto.setBow(copy(src.getBow()));
+        dto.setWand(copy(src.getWand()));
+        StatTotalDTO t = src.getTotal();
+        if (t != null) {
+            dto.setTotal(new StatTotalDTO(t.getWins(), t.getLosses(), t.getKills(), t.getDeaths(), t.getDamage(), t.getKd(), t.getWinRate()));
+        }
+        return dto;
+    }
+
+    private static WeaponDTO copy(WeaponDTO w) {
+        if (w == null) return null;
+        return new WeaponDTO(w.getWeapon(), w.getWins(), w.getLosses(), w.getKills(), w.getDeaths(), w.getDamage());
+    }
+
+    // invalidate 메시지 : {userId}:{Mode}
+    private record Key(long userId, Mode mode) {
+        private String format() {
+            return userId + ":" + mode.name();
+        }
+
+        private static Key parse(String s) {
+            int i = s.indexOf(':');
+            return new Key(Long.parseLong(s.substring(0, i)), Mode.valueOf(s.substring(i + 1)));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.ssafy.gamedataserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.entity.battle.Weapon;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * battle_stats 기본 row (Mode × Weapon) 생성
+ *
+ * BattleStat 은 IDENTITY id 라서 saveAll 이 row 마다 INSERT 를 보낸다.
+ * 여기서는 사용자 여러 명의 row 를 INSERT ... SELECT 한 문장으로 만든다.
+ *  - users × (Mode 목록) × (Weapon 목록) 중 battle_stats 에 없는 조합만 넣는다. => 여러 번 실행해도 된다.
+ *  - 가입 : enqueue 로 모아두고 flush-ms 마다 batch-size 명씩 한 문장 (가입이 몰려도 작은 INSERT 가 쌓이지 않는다.)
+ *    큐에 있던 사용자가 재시작으로 빠지면 backfill 이 채운다. 조회 시 row 가 없으면 다시 큐에 넣는다.
+ *  - backfill : users.id 범위를 chunk 단위로 나눠서 같은 문장을 실행한다. (game.battlestat.backfill.enabled)
+ **/
+@Slf4j
+@Service
+public class BattleStatProvisioner {
+
+    private static final String INSERT_MISSING_PREFIX =
+            "INSERT IGNORE INTO battle_stats (user_id, mode, weapon, wins, losses, kills, deaths, damage) " +
+            "SELECT u.id, m.mode, w.weapon, 0, 0, 0, 0, 0 FROM users u " +
+            "CROSS JOIN (" + values("mode", Mode.values()) + ") m " +
+            "CROSS JOIN (" + values("weapon", Weapon.values()) + ") w " +
+            "WHERE ";
+    private static final String INSERT_MISSING_SUFFIX =
+            " AND NOT EXISTS (SELECT 1 FROM battle_stats b WHERE b.user_id = u.id AND b.mode = m.mode AND b.weapon = w.weapon)";
+    private static final String RANGE_SQL = INSERT_MISSING_PREFIX + "u.id > ? AND u.id <= ?" + INSERT_MISSING_SUFFIX;
+
+    private final JdbcTemplate jdbc;
+    private final int batchSize;
+    private final boolean backfillEnabled;
+    private final int backfillChunk;
+
+    private final ConcurrentLinkedQueue<Long> queue = new ConcurrentLinkedQueue<>();
+
+    public BattleStatProvisioner(JdbcTemplate jdbc,
+                                 @Value("${game.battlestat.provision.batch-size:500}") int batchSize,
+                                 @Value("${game.battlestat.backfill.enabled:false}") boolean backfillEnabled,
+                                 @Value("${game.battlestat.backfill.chunk:5000}") int backfillChunk) {
+        this.jdbc = jdbc;
+        this.batchSize = Math.max(1, batchSize);
+        this.backfillEnabled = backfillEnabled;
+        this.backfillChunk = Math.max(1, backfillChunk);
+    }
+
+    // SELECT 'SINGLE' AS mode UNION ALL SELECT 'TEAM' ...
+    private static String values(String column, Enum<?>[] values) {
+        StringJoiner sql = new StringJoiner(" UNION ALL ");
+        for (Enum<?> v : values) sql.add("SELECT '" + v.name() + "' AS " + column);
+        return sql.toString();
+    }
+
+    /**
+     * 가입 직후 호출 : 다음 flush 에서 다른 사용자와 함께 만든다.
+     **/
+    public void enqueue(long userId) {
+        queue.add(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${game.battlestat.provision.flush-ms:200}")
+    public void flush() {
+        while (!queue.isEmpty()) {
+            List<Long> ids = new ArrayList<>(batchSize);
+            Long id;
+            while (ids.size() < batchSize && (id = queue.poll()) != null) ids.add(id);
+            if (ids.isEmpty()) return;
+            try {
+                provision(ids);
+            } catch (Exception e) {
+                // 빠진 사용자는 backfill / 다음 조회 때 다시 만든다.
+                log.warn("[BATTLE STAT] failed to provision {} users: {}", ids.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * userIds 의 빠진 row 를 한 문장으로 만든다.
+     * @return 만든 row 수
+     **/
+    public int provision(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return 0;
+        StringJoiner in = new StringJoiner(",", "u.id IN (", ")");
+        for (int i = 0; i < userIds.size(); i++) in.add("?");
+        return jdbc.update(INSERT_MISSING_PREFIX + in + INSERT_MISSING_SUFFIX, userIds.toArray());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillEnabled) return;
+        Thread worker = new Thread(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.warn("[BATTLE STAT] backfill failed: {}", e.getMessage());
+            }
+        }, "battle-stat-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 기존 사용자 전체의 빠진 row 를 users.id 범위 chunk 단위로 만든다.
+     * chunk 마다 별도 문장이므로 중간에 멈춰도 다음 실행이 이어서 채운다.
+     * @return 만든 row 수
+     **/
+    public long backfill() {
+        Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        if (maxId == null) return 0;
+        long created = 0;
+        for (long from = 0; from < maxId; from += backfillChunk) {
+            created += jdbc.update(RANGE_SQL, from, Math.min(from + backfillChunk, maxId));
+        }
+        log.info("[BATTLE STAT] backfill created {} rows (users up to id {})", created, maxId);
+        return created;
+    }
+
+}
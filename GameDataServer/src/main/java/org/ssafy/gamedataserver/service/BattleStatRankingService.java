@@ -0,0 +1,235 @@
+package org.ssafy.gamedataserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.ssafy.gamedataserver.dto.battle.MyRankDTO;
+import org.ssafy.gamedataserver.dto.battle.RankEntryDTO;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.entity.battle.Weapon;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * battle_stats 순위 (Mode × Weapon × Metric 별 Redis sorted set)
+ *
+ * key : game:prod:rank:{metric}:{MODE}:{WEAPON}, member = userId, score = battle_stats 의 누적 값
+ *  - 갱신 : BattleStatAccumulator 가 MySQL 에 반영한 사용자의 row 를 다시 읽어서 ZADD (refresh)
+ *    MySQL 의 현재 값을 그대로 덮어쓰므로 값이 줄어든 경우 (정정 / 초기화) 도 반영된다.
+ *    rebuild 가 읽은 뒤 바뀐 row 는 다음 refresh 때 다시 맞춰진다.
+ *  - 최초 구축 : ready 표시가 없으면 시작 시 battle_stats 를 id 순서로 chunk 단위로 읽어서 채운다. (rebuild)
+ *    battle_stats 를 직접 고친 경우 등 다시 채워야 하면 force-rebuild 를 켜고 시작하거나 forceRebuild() 를 부른다.
+ *  - 조회 : 페이지 = ZREVRANGE, 내 순위 = ZSCORE + ZCOUNT(내 점수 초과) + ZCARD => O(log N)
+ *    같은 점수는 같은 순위 (앞 사람 수 + 1)
+ **/
+@Slf4j
+@Service
+public class BattleStatRankingService {
+
+    public static final String PREFIX = "game:prod:rank:";
+    public static final String READY_KEY = PREFIX + "ready";
+    private static final String REBUILD_LOCK_KEY = PREFIX + "rebuild:lock";
+
+    public enum Metric { KILLS, DAMAGE, WINS }
+
+    // { score, 점수가 더 높은 사람 수, 전체 인원 } (순위에 없으면 nil)
+    private static final String MY_RANK_LUA =
+            "local s = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+            "if not s then return nil end " +
+            "return { s, redis.call('ZCOUNT', KEYS[1], '(' .. s, '+inf'), redis.call('ZCARD', KEYS[1]) }";
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> MY_RANK_SCRIPT = new DefaultRedisScript<>(MY_RANK_LUA, List.class);
+
+    private static final String ROWS_BY_USER_SQL =
+            "SELECT user_id, mode, weapon, kills, damage, wins FROM battle_stats WHERE user_id IN ";
+    private static final String ROWS_BY_ID_SQL =
+            "SELECT id, user_id, mode, weapon, kills, damage, wins FROM battle_stats WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final StringRedisTemplate redis;
+    private final JdbcTemplate jdbc;
+    private final boolean rebuildOnStartup;
+    private final boolean forceRebuild;
+    private final int rebuildChunk;
+
+    public BattleStatRankingService(StringRedisTemplate redis, JdbcTemplate jdbc,
+                                    @Value("${game.battlestat.ranking.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                    @Value("${game.battlestat.ranking.force-rebuild:false}") boolean forceRebuild,
+                                    @Value("${game.battlestat.ranking.rebuild-chunk:5000}") int rebuildChunk) {
+        this.redis = redis;
+        this.jdbc = jdbc;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.forceRebuild = forceRebuild;
+        this.rebuildChunk = Math.max(1, rebuildChunk);
+    }
+
+    public static String key(Metric metric, Mode mode, Weapon weapon) {
+        return PREFIX + metric.name().toLowerCase() + ":" + mode.name() + ":" + weapon.name();
+    }
+
+    /**
+     * 상위 순위 한 페이지 (page 는 0 부터)
+     **/
+    public List<RankEntryDTO> page(Metric metric, Mode mode, Weapon weapon, int page, int size) {
+        long from = (long) page * size;
+        Set<TypedTuple<String>> tuples = redis.opsForZSet().reverseRangeWithScores(key(metric, mode, weapon), from, from + size - 1);
+        if (tuples == null || tuples.isEmpty()) return List.of();
+
+        List<RankEntryDTO> out = new ArrayList<>(tuples.size());
+        long position = from;
+        long rank = from + 1;
+        Double prev = null;
+        for (TypedTuple<String> t : tuples) {
+            double score = t.getScore() == null ? 0 : t.getScore();
+            // 같은 점수는 같은 순위 : 페이지 첫 사람은 앞 페이지와 비교해야 하므로 ZCOUNT 로 구한다.
+            if (prev == null) {
+                rank = above(metric, mode, weapon, score) + 1;
+            } else if (score != prev) {
+                rank = position + 1;
+            }
+            out.add(new RankEntryDTO(rank, Long.parseLong(t.getValue()), (long) score));
+            prev = score;
+            position++;
+        }
+        return out;
+    }
+
+    private long above(Metric metric, Mode mode, Weapon weapon, double score) {
+        Long count = redis.opsForZSet().count(key(metric, mode, weapon), Math.nextUp(score), Double.POSITIVE_INFINITY);
+        return count == null ? 0L : count;
+    }
+
+    /**
+     * userId 의 순위 / 상위 몇 % 인지 (순위에 없으면 null)
+     **/
+    public MyRankDTO myRank(Metric metric, Mode mode, Weapon weapon, long userId) {
+        List<?> r = redis.execute(MY_RANK_SCRIPT, List.of(key(metric, mode, weapon)), Long.toString(userId));
+        if (r == null || r.size() < 3) return null;
+        long score = (long) Double.parseDouble(r.get(0).toString());
+        long rank = ((Number) r.get(1)).longValue() + 1;
+        long total = ((Number) r.get(2)).longValue();
+        return new MyRankDTO(rank, score, total, total == 0 ? 0 : rank * 100.0 / total);
+    }
+
+    /**
+     * userIds 의 battle_stats row 를 다시 읽어서 순위에 반영한다. (query 1번 + pipeline 1번)
+     **/
+    public void refresh(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        StringJoiner in = new StringJoiner(",", "(", ")");
+        for (int i = 0; i < userIds.size(); i++) in.add("?");
+        List<StatRow> rows = jdbc.query(ROWS_BY_USER_SQL + in, (rs, i) -> new StatRow(
+                rs.getLong("user_id"), rs.getString("mode"), rs.getString("weapon"),
+                rs.getLong("kills"), rs.getLong("damage"), rs.getLong("wins")), userIds.toArray());
+        write(rows);
+    }
+
+    // key 별로 모아서 ZADD (한 pipeline)
+    private void write(List<StatRow> rows) {
+        Map<String, Set<Tuple>> byKey = new HashMap<>();
+        for (StatRow row : rows) {
+            Mode mode;
+            Weapon weapon;
+            try {
+                mode = Mode.valueOf(row.mode);
+                weapon = Weapon.valueOf(row.weapon);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                continue;
+            }
+            byte[] member = Long.toString(row.userId).getBytes(StandardCharsets.UTF_8);
+            for (Metric metric : Metric.values()) {
+                long score = switch (metric) {
+                    case KILLS -> row.kills;
+                    case DAMAGE -> row.damage;
+                    case WINS -> row.wins;
+                };
+                byKey.computeIfAbsent(key(metric, mode, weapon), k -> new HashSet<>()).add(new DefaultTuple(member, (double) score));
+            }
+        }
+        if (byKey.isEmpty()) return;
+        redis.executePipelined((RedisCallback<Object>) c -> {
+            for (Map.Entry<String, Set<Tuple>> e : byKey.entrySet()) {
+                c.zSetCommands().zAdd(e.getKey().getBytes(StandardCharsets.UTF_8), e.getValue(), ZAddArgs.empty());
+            }
+            return null;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        // force-rebuild 면 ready 표시가 있어도 다시 채운다.
+        if (!forceRebuild && (!rebuildOnStartup || Boolean.TRUE.equals(redis.hasKey(READY_KEY)))) return;
+        Thread worker = new Thread(() -> {
+            try {
+                if (forceRebuild) forceRebuild();
+                else rebuild();
+            } catch (Exception e) {
+                log.warn("[BATTLE STAT] ranking rebuild failed: {}", e.getMessage());
+            }
+        }, "battle-stat-ranking-rebuild");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * ready 표시를 지우고 battle_stats 전체로 순위를 다시 채운다.
+     * (끝나기 전에 실패하면 ready 표시가 없으므로 다음 시작 때 다시 한다.)
+     * @return 읽은 row 수 (다른 서버가 하고 있으면 0)
+     **/
+    public long forceRebuild() {
+        redis.delete(READY_KEY);
+        return rebuild();
+    }
+
+    /**
+     * battle_stats 전체를 id 순서로 읽어서 순위를 채운다. (다른 서버가 하고 있으면 건너뜀)
+     * @return 읽은 row 수
+     **/
+    public long rebuild() {
+        Boolean locked = redis.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, "1", Duration.ofMinutes(30));
+        if (!Boolean.TRUE.equals(locked)) return 0;
+        try {
+            long lastId = 0, total = 0;
+            while (true) {
+                List<StatRow> rows = new ArrayList<>(rebuildChunk);
+                long[] maxId = { lastId };
+                jdbc.query(ROWS_BY_ID_SQL, rs -> {
+                    maxId[0] = rs.getLong("id");
+                    rows.add(new StatRow(rs.getLong("user_id"), rs.getString("mode"), rs.getString("weapon"),
+                            rs.getLong("kills"), rs.getLong("damage"), rs.getLong("wins")));
+                }, lastId, rebuildChunk);
+                if (rows.isEmpty()) break;
+                write(rows);
+                total += rows.size();
+                lastId = maxId[0];
+            }
+            redis.opsForValue().set(READY_KEY, Long.toString(System.currentTimeMillis()));
+            log.info("[BATTLE STAT] ranking rebuilt from {} rows", total);
+            return total;
+        } finally {
+            redis.delete(REBUILD_LOCK_KEY);
+        }
+    }
+
+    private record StatRow(long userId, String mode, String weapon, long kills, long damage, long wins) {
+    }
+
+}
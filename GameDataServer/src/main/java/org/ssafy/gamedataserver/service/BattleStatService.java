@@ -1,80 +1,130 @@
 package org.ssafy.gamedataserver.service;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.ssafy.gamedataserver.dto.battle.BattleStatAllDTO;
 import org.ssafy.gamedataserver.dto.battle.BattleStatModeDTO;
+import org.ssafy.gamedataserver.dto.battle.StatTotalDTO;
 import org.ssafy.gamedataserver.dto.battle.WeaponDTO;
 import org.ssafy.gamedataserver.entity.battle.Mode;
-import org.ssafy.gamedataserver.entity.battle.BattleStat;
 import org.ssafy.gamedataserver.entity.battle.Weapon;
-import org.ssafy.gamedataserver.entity.user.User;
 import org.ssafy.gamedataserver.repository.BattleStatRepository;
-import org.ssafy.gamedataserver.repository.UserRepository;
+import org.ssafy.gamedataserver.security.CustomUserDetails;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class BattleStatService {
-    private final UserRepository userRepository;
     private final BattleStatRepository battleStatRepository;
+    private final BattleStatCache battleStatCache;
+    private final BattleStatProvisioner battleStatProvisioner;
 
-    @Transactional
+    // 현재 사용자의 빠진 전적 row 를 만든다. (Mode × Weapon, 한 문장)
     public void init() {
-        Optional<User> user = getCurrentUser();
-        if (user.isPresent() && battleStatRepository.existsByUserId(user.get().getId())) {
-            List<BattleStat> batch = new ArrayList<>(9);
-            for (Mode mode : Mode.values()) {
-                for (Weapon weapon : Weapon.values()) {
-                    BattleStat r = BattleStat.builder()
-                            .user(user.get())
-                            .mode(mode)
-                            .weapon(weapon)
-                            .build();
-                    batch.add(r);
-                }
-            }
-            battleStatRepository.saveAll(batch);
-        }
+        CustomUserDetails.current().ifPresent(principal -> battleStatProvisioner.provision(List.of(principal.getId())));
     }
 
-    @Transactional
+    // 현재 인증 사용자 (JWT principal) 의 전적
     public BattleStatModeDTO getBattleStat(Mode mode) {
+        return getBattleStat(CustomUserDetails.current().orElseThrow().getId(), mode);
+    }
+
+    /**
+     * userId 의 mode 전적 (무기별)
+     * cache 에 없으면 projection query 한 번으로 무기별 row 를 WeaponDTO 로 읽는다.
+     * row 가 아직 없으면 (provisioning 전) cache 에 넣지 않고 provisioning 큐에 넣는다.
+     **/
+    public BattleStatModeDTO getBattleStat(long userId, Mode mode) {
+        BattleStatModeDTO cached = battleStatCache.get(userId, mode);
+        if (cached != null) return cached;
+
+        long version = battleStatCache.version(userId, mode);
+        List<WeaponDTO> rows = battleStatRepository.findWeaponStats(userId, mode);
         BattleStatModeDTO battleStatModeDTO = new BattleStatModeDTO();
-        User user = getCurrentUser().get();
-        Optional<List<BattleStat>> op = battleStatRepository.findAllByUserIdAndMode(user.getId(), mode);
-        if (op.isPresent()) {
-            List<BattleStat> battleStats = op.get();
-            for (BattleStat battleStat : battleStats) {
-                WeaponDTO dto = WeaponDTO
-                        .builder()
-                        .wins(battleStat.getWins())
-                        .losses(battleStat.getLosses())
-                        .kills(battleStat.getKills())
-                        .deaths(battleStat.getDeaths())
-                        .damage(battleStat.getDamage())
-                        .build();
-                switch (battleStat.getWeapon()) {
-                    case SWORD -> battleStatModeDTO.setSword(dto);
-                    case BOW -> battleStatModeDTO.setBow(dto);
-                    case WAND -> battleStatModeDTO.setWand(dto);
-                }
-            }
+        battleStatModeDTO.setMode(mode);
+        for (WeaponDTO dto : rows) {
+            setWeapon(battleStatModeDTO, dto);
+        }
+        if (rows.isEmpty()) {
+            battleStatProvisioner.enqueue(userId);
         } else {
-            init();
+            battleStatCache.put(userId, mode, battleStatModeDTO, version);
         }
         return battleStatModeDTO;
     }
 
-    // 조회
-    private Optional<User> getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username);
+    /**
+     * userId 의 모든 Mode × Weapon 전적과 Mode / 전체 합계
+     * GROUP BY ... WITH ROLLUP 한 번으로 읽고, row 가 없는 칸은 0 으로 채워서 항상 같은 모양으로 돌려준다.
+     **/
+    public BattleStatAllDTO getAllStats(long userId) {
+        Map<Mode, BattleStatModeDTO> modes = new EnumMap<>(Mode.class);
+        for (Mode mode : Mode.values()) {
+            BattleStatModeDTO dto = new BattleStatModeDTO();
+            dto.setMode(mode);
+            modes.put(mode, dto);
+        }
+        StatTotalDTO total = null;
+        for (BattleStatRepository.StatSumView row : battleStatRepository.sumAllStats(userId)) {
+            if (row.getMode() == null) {
+                total = toTotal(row);
+                continue;
+            }
+            BattleStatModeDTO dto = modes.get(Mode.valueOf(row.getMode()));
+            if (row.getWeapon() == null) {
+                dto.setTotal(toTotal(row));
+                continue;
+            }
+            WeaponDTO weapon = WeaponDTO.builder()
+                    .weapon(Weapon.valueOf(row.getWeapon()))
+                    .wins(value(row.getWins()))
+                    .losses(value(row.getLosses()))
+                    .kills(value(row.getKills()))
+                    .deaths(value(row.getDeaths()))
+                    .damage(value(row.getDamage()))
+                    .build();
+            setWeapon(dto, weapon);
+        }
+
+        for (BattleStatModeDTO dto : modes.values()) {
+            for (Weapon weapon : Weapon.values()) {
+                if (getWeapon(dto, weapon) == null) setWeapon(dto, WeaponDTO.builder().weapon(weapon).build());
+            }
+            if (dto.getTotal() == null) dto.setTotal(StatTotalDTO.of(0, 0, 0, 0, 0));
+        }
+        if (total == null) {
+            battleStatProvisioner.enqueue(userId);
+            total = StatTotalDTO.of(0, 0, 0, 0, 0);
+        }
+        return new BattleStatAllDTO(new ArrayList<>(modes.values()), total);
+    }
+
+    private static StatTotalDTO toTotal(BattleStatRepository.StatSumView row) {
+        return StatTotalDTO.of(value(row.getWins()), value(row.getLosses()), value(row.getKills()),
+                value(row.getDeaths()), value(row.getDamage()));
+    }
+
+    private static long value(Long v) {
+        return v == null ? 0L : v;
+    }
+
+    private static WeaponDTO getWeapon(BattleStatModeDTO dto, Weapon weapon) {
+        return switch (weapon) {
+            case SWORD -> dto.getSword();
+            case BOW -> dto.getBow();
+            case WAND -> dto.getWand();
+        };
+    }
+
+    private static void setWeapon(BattleStatModeDTO dto, WeaponDTO stat) {
+        switch (stat.getWeapon()) {
+            case SWORD -> dto.setSword(stat);
+            case BOW -> dto.setBow(stat);
+            case WAND -> dto.setWand(stat);
+        }
     }
 }
@@ -0,0 +1,187 @@
+package org.ssafy.gamedataserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Redis pub/sub 으로 모든 서버에서 같이 지워지는 서버 메모리 cache (BattleStatCache, UserProfileCache)
+ *  - ConcurrentHashMap 이라 읽기끼리 막지 않는다. max-entries 를 넘으면 한 thread 가
+ *    가장 오래 안 읽힌 항목부터 (max-entries / 16 여유를 두고) 한 번에 버린다.
+ *  - ttl 이 지나면 다시 읽는다. (pub/sub 메시지를 놓친 경우 대비)
+ *  - version 은 key hash 로 나눈 stripe 마다 따로 둔다. 조회 전에 version(key) 를 읽어 put 에 넘기면
+ *    그 사이 같은 stripe 의 key 가 invalidate 된 경우에만 넣지 않는다. (다른 사용자의 무효화는 상관없음)
+ *  - 넣을 때 / 꺼낼 때 copier 로 복사한다. => 호출한 쪽이 DTO 를 바꿔도 cache 에 있는 값은 그대로
+ *  - invalidate 는 이 서버에서 지우고 channel 로 key 목록 (',' 구분) 을 보내 다른 서버도 지운다.
+ **/
+@Slf4j
+public class InvalidatingCache<K, V> {
+
+    private static final int STRIPES = 1024;
+
+    private final String name;
+    private final StringRedisTemplate redis;
+    private final String channel;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final UnaryOperator<V> copier;
+    private final Function<K, String> formatter;
+    private final Function<String, K> parser;
+
+    private final ConcurrentHashMap<K, Slot<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    /**
+     * @param name      log 에 남길 이름
+     * @param copier    mutable 값이면 복사, immutable 이면 UnaryOperator.identity()
+     * @param formatter key => invalidate 메시지 (',' 를 포함하면 안 된다.)
+     * @param parser    invalidate 메시지 => key (읽을 수 없으면 예외 또는 null)
+     **/
+    public InvalidatingCache(String name, StringRedisTemplate redis, String channel, int maxEntries, long ttlMillis,
+                             UnaryOperator<V> copier, Function<K, String> formatter, Function<String, K> parser) {
+        this.name = name;
+        this.redis = redis;
+        this.channel = channel;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.copier = copier;
+        this.formatter = formatter;
+        this.parser = parser;
+    }
+
+    // 사용하는 bean 의 @PostConstruct 에서 부른다.
+    public void subscribe(RedisMessageListenerContainer container) {
+        container.addMessageListener((message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+
+    // 조회 전에 읽어두고 put 에 넘긴다.
+    public long version(K key) {
+        return versions.get(stripe(key));
+    }
+
+    /**
+     * @return 복사본 (없거나 ttl 이 지났으면 null)
+     **/
+    public V get(K key) {
+        Slot<V> slot = entries.get(key);
+        if (slot == null) return null;
+        long now = System.currentTimeMillis();
+        if (now - slot.loadedAt >= ttlMillis) {
+            entries.remove(key, slot);
+            return null;
+        }
+        slot.accessedAt = now;
+        return copier.apply(slot.value);
+    }
+
+    /**
+     * 조회 전에 읽은 version 이 그대로일 때만 넣는다.
+     * (version 확인과 넣기를 같은 key 의 compute 안에서 하므로 그 사이의 invalidate 를 놓치지 않는다.)
+     **/
+    public void put(K key, V value, long readVersion) {
+        int stripe = stripe(key);
+        Slot<V> fresh = new Slot<>(copier.apply(value), System.currentTimeMillis());
+        entries.compute(key, (k, old) -> versions.get(stripe) == readVersion ? fresh : old);
+        if (entries.size() > maxEntries) trim();
+    }
+
+    /**
+     * 이 서버와 다른 서버의 keys 항목을 지운다.
+     **/
+    public void invalidate(Collection<K> keys) {
+        if (keys.isEmpty()) return;
+        StringJoiner message = new StringJoiner(",");
+        for (K key : keys) {
+            evict(key);
+            message.add(formatter.apply(key));
+        }
+        try {
+            redis.convertAndSend(channel, message.toString());
+        } catch (Exception e) {
+            // 다른 서버는 ttl 이 지난 뒤에 다시 읽는다.
+            log.warn("[{}] failed to publish cache invalidation: {}", name, e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        for (String token : message.split(",")) {
+            K key;
+            try {
+                key = parser.apply(token.trim());
+            } catch (RuntimeException e) {
+                // 잘못된 메시지
+                continue;
+            }
+            if (key != null) evict(key);
+        }
+    }
+
+    // version 을 먼저 올린 뒤 지운다. => 그 사이에 끝난 조회는 put 에서 걸러진다.
+    private void evict(K key) {
+        versions.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // 가장 오래 안 읽힌 항목부터 (넘친 수 + max-entries / 16) 개를 버린다. 다른 thread 가 하고 있으면 넘어간다.
+    private void trim() {
+        if (!trimLock.tryLock()) return;
+        try {
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0) return;
+            int target = excess + Math.max(1, maxEntries / 16);
+
+            long[] accessed = new long[entries.size()];
+            int n = 0;
+            for (Slot<V> slot : entries.values()) {
+                if (n == accessed.length) break;
+                accessed[n++] = slot.accessedAt;
+            }
+            // 배열을 만든 뒤 다른 thread 의 invalidate 로 비었을 수 있다.
+            if (n == 0) return;
+            Arrays.sort(accessed, 0, n);
+            long threshold = accessed[Math.min(target, n) - 1];
+
+            int removed = 0;
+            for (Iterator<Map.Entry<K, Slot<V>>> it = entries.entrySet().iterator(); removed < target && it.hasNext(); ) {
+                if (it.next().getValue().accessedAt <= threshold) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private static final class Slot<V> {
+        private final V value;
+        private final long loadedAt;
+        private volatile long accessedAt;
+
+        private Slot(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.accessedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.ssafy.gamedataserver.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.ssafy.gamedataserver.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * 사용자 프로필 (username, nickname) cache (서버 메모리, InvalidatingCache)
+ *  - /api/v1/user/me 처럼 토큰에 없는 값이 필요할 때만 쓴다. (id / username / roles 는 JWT principal 에 있음)
+ *  - 없으면 UserRepository.findProfileById 한 번 (PK, user_roles join 없음)
+ *  - users 를 바꾸는 쪽 (닉네임 변경, 게스트 전환) 이 invalidate 를 부르면
+ *    Redis pub/sub 으로 모든 서버의 해당 사용자 항목을 지운다.
+ *  - pub/sub 메시지를 놓친 경우를 위해 ttl-seconds 가 지나면 다시 읽는다.
+ *  - 조회 중에 같은 사용자가 invalidate 되면 그 조회 결과는 넣지 않는다. (key 별 version 비교)
+ *  - Profile 은 immutable record 라 복사하지 않는다.
+ **/
+@Component
+public class UserProfileCache {
+
+    public static final String INVALIDATE_CHANNEL = "game:prod:user:profile:invalidate";
+
+    private final UserRepository userRepository;
+    private final RedisMessageListenerContainer container;
+    private final InvalidatingCache<Long, Profile> cache;
+
+    public UserProfileCache(UserRepository userRepository, StringRedisTemplate redis, RedisMessageListenerContainer container,
+                            @Value("${user.profile-cache.max-users:10000}") int maxUsers,
+                            @Value("${user.profile-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.container = container;
+        this.cache = new InvalidatingCache<>("USER PROFILE", redis, INVALIDATE_CHANNEL, maxUsers, TimeUnit.SECONDS.toMillis(ttlSeconds),
+                UnaryOperator.identity(), String::valueOf, Long::valueOf);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        cache.subscribe(container);
+    }
+
+    /**
+     * userId 의 프로필 (cache hit 이면 DB 조회 없음, 없는 사용자면 empty)
+     **/
+    public Optional<Profile> get(long userId) {
+        Profile cached = cache.get(userId);
+        if (cached != null) return Optional.of(cached);
+
+        long readVersion = cache.version(userId);
+        Optional<Profile> loaded = userRepository.findProfileById(userId)
+                .map(v -> new Profile(v.getId(), v.getUsername(), v.getNickname()));
+        loaded.ifPresent(profile -> cache.put(userId, profile, readVersion));
+        return loaded;
+    }
+
+    /**
+     * 이 서버와 다른 서버의 userId 항목을 지운다. (users 를 바꾼 뒤 호출)
+     **/
+    public void invalidate(long userId) {
+        cache.invalidate(List.of(userId));
+    }
+
+    public record Profile(long id, String username, String nickname) {
+    }
+}
@@ -1,134 +1,392 @@
 package org.ssafy.gamedataserver.service.ingame;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.bson.Document;
-import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisListCommands.Direction;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mongodb.client.MongoCollection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * game.kill.ingest-mode=list (기본값) 일 때만 동작, stream 모드는 KillStreamFlushService
+ *
+ * SCAN 한 key 들을 hash 로 game.kill.flush.workers 개의 partition 에 나누고,
+ * partition 마다 별도 thread 에서 자기 KillEventSink.Batch 로 drain => unordered bulkWrite 한다.
+ * workers=1 (기본값) 이면 기존처럼 scheduler thread 하나에서 모두 처리한다.
+ *
+ * at-least-once : 이벤트는 pop 하지 않고 in-flight List (game:prod:killinflight:{matchId}:{attackerId}) 로 옮긴 뒤
+ * Mongo 쓰기가 끝나야 in-flight List 를 지운다. flush 도중 죽거나 Mongo 쓰기가 실패하면
+ * 다음 주기에 in-flight List 를 다시 읽어서 쓰고, 중복은 KillEventSink 의 (matchId, hitId) upsert 가 걸러낸다.
+ **/
+@Slf4j
 @Service
+@ConditionalOnProperty(name = "game.kill.ingest-mode", havingValue = "list", matchIfMissing = true)
 public class FlushService {
 
-  private static final String PREFIX = "game:prod:kill:"; // game:prod:hit:{matchId}:{attackerId}
-  private final StringRedisTemplate redis;
-  private final MongoTemplate mongo;
-  private final ObjectMapper om = new ObjectMapper();
-
-  public FlushService(StringRedisTemplate redis, MongoTemplate mongo) {
-    this.redis = redis; this.mongo = mongo;
-  }
-  
-  @Scheduled(fixedDelay = 10_000)
-  public void flush() {
-	  // Redis와의 통신을 위한 StringRedisTemplate 객체 이용
-	  // 모든 game:prod:hit: => prefix 가져오기
-	  redis.execute((RedisConnection conn) -> {
-          final int GLOBAL_BATCH_SIZE = 100;
-          final int PER_KEY_POP_SIZE = 50;
-          
-		  ScanOptions options = ScanOptions.scanOptions()
-                  .match(PREFIX + "*")
-                  .count(10000)
-                  .build();
-          
-          int scanned =0, inserted = 0, skipped = 0, deleted = 0;
-          
-          try (Cursor<byte[]> cur = conn.scan(options)) {
-        	  	 System.out.println("Scanning");
-        	  	 
-        	  	 // Batch 단위로 데이터를 넣기 위한 객체 형성
-                 List<org.bson.Document> globalBatch = new ArrayList<>();
-                 
-        	  	 // Redis의 각 엔트리에서, key의 value(JSON)추출.
-        	  	 while (cur.hasNext()) {
-	            	  scanned ++;
-	            	  
-	                  String key = new String(cur.next(), StandardCharsets.UTF_8);
-	                  var type = redis.type(key);
-	                  if (type == null || !"list".equalsIgnoreCase(type.code())) {
-	                      skipped++;
-	                      
-	                      System.out.println("Redis Key is not a List Type!");
-	                      continue;
-	                    }
-	                  
-	                  // 동일한 Key에 대해서 LeftPush 한 것을 Right Pop으로
-	                  // Queue에 넣은 순서대로 뺸다.
-	                  while(true) {
-	                	  String json = redis.opsForList().rightPop(key);
-	                	  if (json == null) break;
-	                		
-				          JsonNode node = om.readTree(json);
-				          
-				          DateTimeFormatter ISO_FORMAT = DateTimeFormatter.ISO_INSTANT;
-				          Long epochMillis = node.has("ts")? node.get("ts").asLong() : null;
-				          epochMillis = (epochMillis != null && epochMillis > 0 ? epochMillis : Instant.now().toEpochMilli()) ;
-				          String isoTs = ISO_FORMAT.format(Instant.ofEpochMilli(epochMillis));
-				          
-				          var doc = new org.bson.Document()
-				            .append("matchId",     node.get("matchId").asText(null))
-				            .append("attackerId",  node.get("attackerId").asText(null))
-				            .append("hitId",       node.get("hitId").asText(null))
-				            .append("damage",      node.get("damage").asInt(0))
-				            .append("weapon",      node.get("weapon").asText(null))
-				            .append("ts",          isoTs);
-				          
-				          // 다음 키로 넘어가서 globalBatch에 document를 더한다.
-				          globalBatch.add(doc);
-				          
-				          // globalBatch의 크기를 넘어가면 한꺼번에 넣는다.
-				          if(globalBatch.size() >=  GLOBAL_BATCH_SIZE) {
-				              mongo.insert(globalBatch, "kill_events");
-				              inserted += globalBatch.size();
-				        	  globalBatch.clear();
-				          }
-				          // mongo.insert(doc, "kill_events");   // ✅ append-only 저장
-				          // inserted ++;
-	                  }
-	                  
-	                  // GlobalBatch내 잔여 데이터를 넣는다.
-	                  if(!globalBatch.isEmpty()) {
-	                	  mongo.insert(globalBatch, "kill_events");
-	                	  // 드라이버는 _id를 제자리(mutating)로 채워넣습니다. 실제로 들어간 _id를 바로 확인 가능.
-	                	  // globalBatch.forEach(d -> System.out.println("[MONGO] inserted _id=" + d.getObjectId("_id")));
-	                	  inserted += globalBatch.size();
-	                	  
-	                	  globalBatch.clear();
-	                	  // System.out.println("[MONGO] DB=" + mongo.getDb().getName());
-	             	  	  // System.out.println("[MONGO] Collections=" + mongo.getDb().listCollectionNames().into(new java.util.ArrayList<>()));
-	                	  
-	             	  	  System.out.println("Total Global Batch is inserted and cleared");
-	                  }else {
-	                	  System.out.println("Global Batch is Empty");
-	                  }
-	                  
-        	  	 }
-        	  	 
-        	  	 if(scanned!=0) {              	  
-        	  		System.out.printf("%d keys Scanned, %d values detected\n", scanned, inserted);
-           	  	 	System.out.println("All data inserted to MongoDB");
-           	  	 	
-           	  	 	MongoCollection<Document> coll = mongo.getCollection("kill_events");
-           	  	 	System.out.println("[MONGO] count now = " + coll.countDocuments());
-        	  	 }
-        	  	 
-     
-      } catch (Exception e) { 
-    	  System.out.println("Failed to scan Redis key");
-      }
-      return null;
-    });
-  }
+	private static final String PREFIX = KillBufferWriter.LIST_PREFIX; // game:prod:kill:{matchId}:{attackerId}
+	private static final String INFLIGHT_PREFIX = KillBufferWriter.INFLIGHT_PREFIX; // game:prod:killinflight:{matchId}:{attackerId}
+
+	// 꼬리(가장 오래된 값)에서 최대 n 개를 in-flight List 로 원자적으로 옮기고 옮긴 값을 돌려준다.
+	// 이전 버전이 EXPIRE 를 걸어둔 원본 List 는 PERSIST 로 TTL 을 없앤다.
+	// KEYS[1] = 원본 List, KEYS[2] = in-flight List, ARGV[1] = n
+	private static final byte[] MOVE_BATCH_LUA = (
+			"local vals = redis.call('LRANGE', KEYS[1], -tonumber(ARGV[1]), -1) " +
+			"if #vals == 0 then return vals end " +
+			"redis.call('LTRIM', KEYS[1], 0, -#vals - 1) " +
+			"redis.call('PERSIST', KEYS[1]) " +
+			"redis.call('RPUSH', KEYS[2], unpack(vals)) " +
+			"return vals").getBytes(StandardCharsets.UTF_8);
+
+	private final StringRedisTemplate redis;
+	private final KillEventCodec codec;
+	private final KillEventSink sink;
+	private final KillIngestAdmission admission;
+
+	// true : SCAN 한 페이지의 key 마다 MOVE_BATCH_LUA 로 perKeyPopSize 개를 in-flight list 로 옮긴다. (한 pipeline)
+	// false: key 마다 원소 하나씩 in-flight list 로 LMOVE
+	private final boolean bulkPop;
+	private final int perKeyPopSize;
+	private final int scanPageSize;
+
+	private final Partition[] partitions;
+	private final ExecutorService workers;
+
+	public FlushService(StringRedisTemplate redis, KillEventCodec codec, KillEventSink sink, KillIngestAdmission admission, MeterRegistry meters,
+			@Value("${game.kill.flush.bulk-pop:true}") boolean bulkPop,
+			@Value("${game.kill.flush.pop-size:50}") int perKeyPopSize,
+			@Value("${game.kill.flush.scan-page:500}") int scanPageSize,
+			@Value("${game.kill.flush.workers:1}") int workerCount) {
+		this.redis = redis; this.codec = codec; this.sink = sink; this.admission = admission;
+		this.bulkPop = bulkPop;
+		// Lua unpack 인자 수 제한 때문에 1000 개로 제한한다.
+		this.perKeyPopSize = Math.min(1000, Math.max(1, perKeyPopSize));
+		this.scanPageSize = Math.max(1, scanPageSize);
+
+		int n = Math.max(1, workerCount);
+		this.partitions = new Partition[n];
+		for (int i = 0; i < n; i++) {
+			partitions[i] = new Partition(i, meters);
+		}
+		if (n > 1) {
+			AtomicInteger seq = new AtomicInteger();
+			this.workers = Executors.newFixedThreadPool(n, r -> {
+				Thread t = new Thread(r, "kill-flush-" + seq.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			});
+		} else {
+			this.workers = null;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (workers != null) workers.shutdown();
+	}
+
+	@Scheduled(fixedDelay = 10_000)
+	public void flush() {
+		// Redis와의 통신을 위한 StringRedisTemplate 객체 이용
+		// 모든 game:prod:kill: => prefix 가져오기
+		List<List<byte[]>> keysByPartition = scan(PREFIX);
+		List<List<byte[]>> inflightByPartition = scan(INFLIGHT_PREFIX);
+		int scanned = keysByPartition.stream().mapToInt(List::size).sum();
+		int recovering = inflightByPartition.stream().mapToInt(List::size).sum();
+		if (scanned == 0 && recovering == 0) return;
+		if (recovering > 0) {
+			log.info("[FLUSH] recovering {} in-flight kill lists", recovering);
+		}
+
+		// Redis 재시작 등으로 script cache 가 비었을 수 있으므로 주기마다 올린다.
+		String moveSha = bulkPop ? redis.execute((RedisConnection conn) -> conn.scriptingCommands().scriptLoad(MOVE_BATCH_LUA)) : null;
+
+		long inserted = 0;
+		try {
+			inserted = runPartitions(keysByPartition, inflightByPartition, moveSha);
+		} finally {
+			// API 서버의 admission control 이 참고하는 lag (partition 중 최대값)
+			long lag = 0;
+			for (Partition p : partitions) lag = Math.max(lag, p.lagMs.get());
+			admission.reportFlushLag(lag);
+		}
+		log.info("[FLUSH] {} keys scanned, {} values inserted to MongoDB", scanned, inserted);
+	}
+
+	private long runPartitions(List<List<byte[]>> keysByPartition, List<List<byte[]>> inflightByPartition, String moveSha) {
+		long inserted = 0;
+		if (workers == null) {
+			inserted = partitions[0].run(keysByPartition.get(0), inflightByPartition.get(0), moveSha);
+		} else {
+			List<Future<Long>> futures = new ArrayList<>(partitions.length);
+			for (Partition p : partitions) {
+				List<byte[]> keys = keysByPartition.get(p.id);
+				List<byte[]> inflight = inflightByPartition.get(p.id);
+				futures.add(workers.submit(() -> p.run(keys, inflight, moveSha)));
+			}
+			for (Future<Long> f : futures) {
+				try {
+					inserted += f.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (Exception e) {
+					log.warn("Kill flush worker failed: {}", e.getMessage());
+				}
+			}
+		}
+		return inserted;
+	}
+
+	// SCAN 은 prefix 마다 한 번만 돌리고, key 를 hash 로 partition 에 나눈다.
+	private List<List<byte[]>> scan(String prefix) {
+		List<List<byte[]>> keysByPartition = new ArrayList<>(partitions.length);
+		for (int i = 0; i < partitions.length; i++) keysByPartition.add(new ArrayList<>());
+
+		int prefixLength = prefix.getBytes(StandardCharsets.UTF_8).length;
+		redis.execute((RedisConnection conn) -> {
+			ScanOptions options = ScanOptions.scanOptions()
+					.match(prefix + "*")
+					.count(10000)
+					.build();
+			try (Cursor<byte[]> cur = conn.scan(options)) {
+				while (cur.hasNext()) {
+					byte[] key = cur.next();
+					keysByPartition.get(partitionOf(key, prefixLength)).add(key);
+				}
+			} catch (Exception e) {
+				log.warn("Failed to scan Redis kill keys: {}", e.getMessage());
+			}
+			return null;
+		});
+		return keysByPartition;
+	}
+
+	// 원본 List 와 in-flight List 가 같은 partition 에 오도록 {matchId}:{attackerId} 부분만 hash 한다.
+	private int partitionOf(byte[] key, int prefixLength) {
+		int h = 1;
+		for (int i = prefixLength; i < key.length; i++) h = 31 * h + key[i];
+		return Math.floorMod(h, partitions.length);
+	}
+
+	// {prefix}{matchId}:{attackerId} => matchId (attackerId 에는 ':' 가 없다.)
+	private static String matchIdOf(byte[] key, String prefix) {
+		String k = new String(key, StandardCharsets.UTF_8);
+		int end = k.lastIndexOf(':');
+		return end > prefix.length() ? k.substring(prefix.length(), end) : k.substring(prefix.length());
+	}
+
+	private static byte[] inflightKey(byte[] key) {
+		String suffix = new String(key, StandardCharsets.UTF_8).substring(PREFIX.length());
+		return (INFLIGHT_PREFIX + suffix).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * partition 하나 = worker thread 하나. batch buffer 와 metric 을 따로 가진다.
+	 **/
+	private final class Partition {
+		private final int id;
+		// key 가 바뀌어도 유지되는 batch => batch-size / max-latency 조건에서만 쓴다.
+		private final KillEventSink.Batch batch = sink.newBatch();
+		// 이번 주기에 값을 옮겨 담은 in-flight List => 모든 쓰기가 끝난 뒤에 지운다.
+		private final List<byte[]> touched = new ArrayList<>();
+		// 이번 주기에 batch 에 담은 이벤트 수 (matchId 별) => ack 후 admission depth 에서 뺀다.
+		private final Map<String, Long> buffered = new HashMap<>();
+
+		private final AtomicLong lagMs = new AtomicLong();
+		private final AtomicLong throughput = new AtomicLong();
+		private final AtomicLong backlogKeys = new AtomicLong();
+		private final Counter insertedCounter;
+
+		private Partition(int id, MeterRegistry meters) {
+			this.id = id;
+			String tag = String.valueOf(id);
+			Gauge.builder("kill.flush.partition.lag", lagMs, AtomicLong::get)
+					.description("이벤트 발생부터 kill_events insert 까지 걸린 시간 (ms, 마지막 batch 기준)")
+					.tag("partition", tag).register(meters);
+			Gauge.builder("kill.flush.partition.throughput", throughput, AtomicLong::get)
+					.description("마지막 flush 주기의 초당 insert 수")
+					.tag("partition", tag).register(meters);
+			Gauge.builder("kill.flush.partition.keys", backlogKeys, AtomicLong::get)
+					.description("마지막 SCAN 에서 이 partition 에 배정된 key 수")
+					.tag("partition", tag).register(meters);
+			this.insertedCounter = Counter.builder("kill.flush.partition.inserted")
+					.tag("partition", tag).register(meters);
+		}
+
+		private long run(List<byte[]> keys, List<byte[]> inflight, String moveSha) {
+			backlogKeys.set(keys.size());
+			long started = System.nanoTime();
+			long inserted = 0;
+			touched.clear();
+			buffered.clear();
+			try {
+				// 1) 지난 주기에 쓰지 못한 in-flight List 부터 다시 쓴다.
+				inserted += recover(inflight);
+				// 2) 새 이벤트를 in-flight List 로 옮기면서 batch 에 담는다.
+				for (int from = 0; from < keys.size(); from += scanPageSize) {
+					List<byte[]> page = keys.subList(from, Math.min(keys.size(), from + scanPageSize));
+					inserted += bulkPop ? bulkDrain(page, moveSha) : singleDrain(page);
+				}
+				// 이번 주기의 잔여 데이터를 넣는다. (다음 주기까지 메모리에 두지 않는다.)
+				inserted += batch.flush();
+				// 3) 모든 쓰기가 끝났으므로 in-flight List 를 지운다.
+				ack();
+			} catch (Exception e) {
+				// in-flight List 는 남겨두고 다음 주기에 다시 쓴다.
+				log.warn("Failed to flush kill partition {}: {}", id, e.getMessage());
+			}
+			lagMs.set(batch.getLastLagMs());
+			insertedCounter.increment(inserted);
+			long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+			throughput.set(inserted * 1000 / elapsedMs);
+			return inserted;
+		}
+
+		private long recover(List<byte[]> inflight) {
+			if (inflight.isEmpty()) return 0;
+			long inserted = 0;
+			List<Object> results = redis.executePipelined((RedisCallback<Object>) c -> {
+				for (byte[] key : inflight) {
+					c.listCommands().lRange(key, 0, -1);
+				}
+				return null;
+			}, RedisSerializer.byteArray());
+			for (int i = 0; i < inflight.size() && i < results.size(); i++) {
+				if (!(results.get(i) instanceof List<?> values)) continue;
+				String matchId = matchIdOf(inflight.get(i), INFLIGHT_PREFIX);
+				for (Object raw : values) {
+					inserted += add(matchId, (byte[]) raw);
+				}
+				touched.add(inflight.get(i));
+			}
+			return inserted;
+		}
+
+		/**
+		 * key 마다 MOVE_BATCH_LUA (LRANGE + LTRIM + RPUSH in-flight) 를 하나의 pipeline 으로 보낸다.
+		 * perKeyPopSize 만큼 꽉 차서 돌아온 key 는 아직 남은 값이 있으므로 다음 라운드에 다시 보낸다.
+		 * => 페이지당 round trip 수 = ceil(가장 긴 List 길이 / perKeyPopSize)
+		 **/
+		private long bulkDrain(List<byte[]> keys, String moveSha) {
+			long inserted = 0;
+			byte[] count = String.valueOf(perKeyPopSize).getBytes(StandardCharsets.UTF_8);
+			List<byte[]> pending = new ArrayList<>(keys);
+			while (!pending.isEmpty()) {
+				List<byte[]> round = pending;
+				List<Object> results;
+				try {
+					// byte[] 그대로 받아야 binary record 가 깨지지 않는다.
+					results = redis.executePipelined((RedisCallback<Object>) c -> {
+						for (byte[] key : round) {
+							c.scriptingCommands().evalSha(moveSha, ReturnType.MULTI, 2, key, inflightKey(key), count);
+						}
+						return null;
+					}, RedisSerializer.byteArray());
+				} catch (RedisPipelineException e) {
+					// List 가 아닌 key (WRONGTYPE) 등 일부 실패 => 해당 key 만 건너뛴다.
+					results = e.getPipelineResult();
+				}
+
+				pending = new ArrayList<>();
+				for (int i = 0; i < round.size() && i < results.size(); i++) {
+					if (!(results.get(i) instanceof List<?> values) || values.isEmpty()) continue;
+					touched.add(inflightKey(round.get(i)));
+					String matchId = matchIdOf(round.get(i), PREFIX);
+					for (Object raw : values) {
+						inserted += add(matchId, (byte[]) raw);
+					}
+					if (values.size() >= perKeyPopSize) {
+						pending.add(round.get(i));
+					}
+				}
+			}
+			return inserted;
+		}
+
+		// 동일한 Key에 대해서 LeftPush 한 것을 Right 에서 하나씩 in-flight List 로 옮긴다. (LMOVE)
+		// Queue에 넣은 순서대로 뺸다.
+		private long singleDrain(List<byte[]> keys) {
+			Long inserted = redis.execute((RedisConnection conn) -> {
+				long n = 0;
+				for (byte[] key : keys) {
+					var type = conn.keyCommands().type(key);
+					if (type == null || !"list".equalsIgnoreCase(type.code())) {
+						continue;
+					}
+					byte[] inflight = inflightKey(key);
+					String matchId = matchIdOf(key, PREFIX);
+					boolean moved = false;
+					// binary record 가 깨지지 않도록 String 변환 없이 byte[] 로 꺼낸다.
+					while (true) {
+						byte[] raw = conn.listCommands().lMove(key, inflight, Direction.RIGHT, Direction.LEFT);
+						if (raw == null) break;
+						if (!moved) {
+							touched.add(inflight);
+							moved = true;
+						}
+
+						// batch 크기 / 대기 시간을 넘어가면 한꺼번에 넣는다.
+						n += add(matchId, raw);
+					}
+				}
+				return n;
+			});
+			return inserted == null ? 0 : inserted;
+		}
+
+		// Mongo 쓰기가 끝난 in-flight List 를 한 번에 지운다.
+		private void ack() {
+			if (touched.isEmpty()) return;
+			Map<String, Long> released = new HashMap<>(buffered);
+			buffered.clear();
+			List<byte[]> keys = new ArrayList<>(touched);
+			touched.clear();
+			redis.executePipelined((RedisCallback<Object>) c -> {
+				for (int from = 0; from < keys.size(); from += scanPageSize) {
+					List<byte[]> page = keys.subList(from, Math.min(keys.size(), from + scanPageSize));
+					c.keyCommands().del(page.toArray(new byte[0][]));
+				}
+				return null;
+			});
+			admission.release(released);
+		}
+
+		// JSON / binary record 를 JsonNode 없이 바로 Document 로 만든다.
+		// depth 는 record 내용이 아니라 key 의 matchId 로 센다. (버리는 record 도 buffer 에서는 빠지므로 release 한다.)
+		private int add(String matchId, byte[] raw) {
+			buffered.merge(matchId, 1L, Long::sum);
+			KillEvent event;
+			try {
+				event = codec.decode(raw);
+			} catch (Exception e) {
+				// 디코딩 불가한 record 는 다시 읽어도 실패하므로 버린다. (in-flight List 와 함께 지워진다.)
+				log.warn("Dropping malformed kill event: {}", e.getMessage());
+				return 0;
+			}
+			return batch.add(event);
+		}
+	}
 }
@@ -1,67 +1,220 @@
 package org.ssafy.gamedataserver.service.ingame;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.ssafy.gamedataserver.dto.ingame.DamageDto;
+import org.ssafy.gamedataserver.dto.ingame.GameInfoDto;
+import org.ssafy.gamedataserver.dto.ingame.KillBatchResultDto;
+import org.ssafy.gamedataserver.dto.ingame.KillBatchResultDto.EventResult;
+import org.ssafy.gamedataserver.entity.battle.Mode;
+import org.ssafy.gamedataserver.service.ingame.KillIngestAdmission.Decision;
 
 @Service
 public class InGameService {
-	
-	private static final String GAME_HIT_PREFIX = "game:prod:kill:";
-	
+
 	private final MongoTemplate mongoTemplate;
-	
-	public InGameService(MongoTemplate mongoTemplate) {
+	private final KillEventCodec codec;
+	private final KillBufferWriter writer;
+	private final KillIngestAdmission admission;
+	private final KillRollupService rollups;
+	private final MatchSummaryService matches;
+	// client 가 보낸 ttlSeconds 의 상한 (= kill_events 기본 보관 기간)
+	private final long maxTtlSeconds;
+
+	public InGameService(MongoTemplate mongoTemplate, KillEventCodec codec, KillBufferWriter writer, KillIngestAdmission admission,
+			KillRollupService rollups, MatchSummaryService matches, @Value("${game.kill.retention.flushed-days:90}") long retentionDays) {
 		this.mongoTemplate = mongoTemplate;
+		this.codec = codec;
+		this.writer = writer;
+		this.admission = admission;
+		this.rollups = rollups;
+		this.matches = matches;
+		this.maxTtlSeconds = Duration.ofDays(retentionDays).toSeconds();
 	}
-	
+
 	/**
 	 *RedisTemplate
-	 *RedisTemplate<Key:String, Value:String> 
+	 *RedisTemplate<Key:String, Value:String>
 	**/
 	@Autowired
-	private StringRedisTemplate redis;	
-	
+	private StringRedisTemplate redis;
+
 	/**
 	 * Redis에 게임 중 Kill 정보 보내기
+	 * buffer 가 high-water mark 를 넘은 상태면 저장하지 않고 REJECT / SAMPLED_OUT 을 돌려준다.
+	 * 호출 전에 validate(req) 로 필수 값을 검사한다. (빈 matchId 로 null: key 를 만들지 않도록)
 	 * **/
-	public void saveRedis(DamageDto req) {
-		//Key 값
-		String key = String.format(GAME_HIT_PREFIX + "%s:%s",
-				req.getMatchId(), req.getAttackerId());
-		
+	public Decision saveRedis(DamageDto req) {
+		String reason = validate(req);
+		if (reason != null) throw new IllegalArgumentException(reason);
+		Decision decision = admission.admit(req.getMatchId());
+		if (decision != Decision.ADMIT) return decision;
+
+		// value 저장 값 (game.kill.format 에 따라 JSON / binary byte[] 로 바로 인코딩)
+		byte[] value = buildValue(req);
+
+		// Redis List로 같은 Key 값이어도 겹치지 않게 한다. (stream 모드에서는 shard Stream에 XADD)
+		// flush 전의 buffer 에는 TTL 을 걸지 않는다.
+		// 요청의 ttlSeconds 는 flush 된 뒤 kill_events 에 보관할 기간으로 쓴다. (서버 보관 기간이 상한)
+		// match 의 idle 종료 시각도 같은 pipeline 에서 미룬다. (MatchSummaryService)
+		redis.executePipelined((RedisCallback<Object>) conn -> {
+			writer.append(conn, req.getMatchId(), req.getAttackerId(), new byte[][] { value });
+			admission.recordBuffered(conn, req.getMatchId(), 1);
+			matches.touch(conn, req.getMatchId());
+			return null;
+		});
+		return decision;
+	}
+
+	/**
+	 * Redis에 여러 Kill 정보를 한 번에 보내기
+	 * matchId:attackerId Key 별로 묶어서 LPUSH(여러 값) 를 하나의 pipeline으로 보낸다.
+	 * (stream 모드에서는 이벤트마다 XADD 를 같은 pipeline으로 보낸다.)
+	 * @param reqs Client가 모아서 보낸 이벤트 배열
+	 * @return 요청 index 별 저장 결과
+	 **/
+	public KillBatchResultDto saveRedisBatch(List<DamageDto> reqs) {
+		EventResult[] results = new EventResult[reqs.size()];
+
+		// Key 별로 요청 index 를 모은다. (LinkedHashMap => pipeline 결과 순서와 동일)
+		Map<String, List<Integer>> groups = new LinkedHashMap<>();
+		for (int i = 0; i < reqs.size(); i++) {
+			DamageDto req = reqs.get(i);
+			String reason = validate(req);
+			if (reason != null) {
+				results[i] = new EventResult(i, req == null ? null : req.getHitId(), false, reason);
+				continue;
+			}
+			Decision decision = admission.admit(req.getMatchId());
+			if (decision != Decision.ADMIT) {
+				String why = decision == Decision.REJECT ? KillBatchResultDto.REASON_OVERLOADED : KillBatchResultDto.REASON_SAMPLED_OUT;
+				results[i] = new EventResult(i, req.getHitId(), false, why);
+				continue;
+			}
+			groups.computeIfAbsent(buildKey(req), k -> new ArrayList<>()).add(i);
+		}
+
+		if (!groups.isEmpty()) {
+			// 그룹별로 pipeline 결과에서 차지하는 명령 수
+			int[] commands = new int[groups.size()];
+			List<Object> pipelined;
+			try {
+				pipelined = redis.executePipelined((RedisCallback<Object>) conn -> {
+					int g = 0;
+					for (List<Integer> idx : groups.values()) {
+						byte[][] values = new byte[idx.size()][];
+						for (int j = 0; j < idx.size(); j++) {
+							values[j] = buildValue(reqs.get(idx.get(j)));
+						}
+						DamageDto first = reqs.get(idx.get(0));
+						commands[g] = writer.append(conn, first.getMatchId(), first.getAttackerId(), values);
+						commands[g] += admission.recordBuffered(conn, first.getMatchId(), values.length);
+						commands[g++] += matches.touch(conn, first.getMatchId());
+					}
+					return null;
+				});
+			} catch (RedisPipelineException e) {
+				// 일부 명령만 실패한 경우 => 실패한 Key 그룹만 거절 처리한다.
+				pipelined = e.getPipelineResult();
+			} catch (RuntimeException e) {
+				// Redis 연결 자체가 실패한 경우 => 전체 거절
+				pipelined = null;
+			}
+
+			// pipeline 결과는 Key 그룹 순서대로 commands[g] 개씩 들어있다.
+			int g = 0, offset = 0;
+			for (List<Integer> idx : groups.values()) {
+				String reason = groupFailure(pipelined, offset, commands[g]);
+				offset += commands[g++];
+				for (int i : idx) {
+					results[i] = new EventResult(i, reqs.get(i).getHitId(), reason == null, reason);
+				}
+			}
+		}
+
+		int accepted = 0;
+		for (EventResult r : results) {
+			if (r.isAccepted()) accepted++;
+		}
+		return new KillBatchResultDto(accepted, results.length - accepted, List.of(results));
+	}
+
+	/**
+	 * Log에 저장된 게임 데이터에 대한 분석된 정보 가져오기
+	 * kill_events 를 직접 읽지 않고 flush 때 갱신되는 rollup 만 읽는다. (KillRollupService)
+	 * @return 최다 사용 무기, 무기별 Kill, 시간대별 Kill, Kill 순위
+	 **/
+	public GameInfoDto getGameInfo() {
+		return rollups.getGameInfo();
+	}
+
+	// game:prod:kill:{matchId}:{attackerId}
+	private String buildKey(DamageDto req) {
+		return KillBufferWriter.listKey(req.getMatchId(), req.getAttackerId());
+	}
+
+	private byte[] buildValue(DamageDto req) {
 		// timestamp 존재 여부 확인
 		long timeStamp = req.getTimeStamp()!= null && req.getTimeStamp()>0 ? req.getTimeStamp() : System.currentTimeMillis() ;
-		
-		// value 저장 값
-		String value = String.format("{\"matchId\":\"%s\",\"attackerId\":\"%s\", \"hitId\":\"%s\" ,\"damage\":%d, \"weapon\":\"%s\", \"ts\":%d}",        
-				req.getMatchId(), req.getAttackerId(), req.getHitId(), req.getDamage(), req.getWeapon(), timeStamp
-				);
-		
-		// Redis List로 같은 Key 값이어도 겹치지 않게 한다.
-		// 요청에 TTL값이 0 존재한다면 주어진 값을, 
-		// 그렇지 않다면 30초동안 Redis에 Key-Value를 보관한다.
-		redis.opsForList().leftPush(key, value);
-		
-		long ttl = (req.getTtlSeconds()!= null && req.getTtlSeconds() > 0) ? req.getTtlSeconds() :30L;
-		redis.expire(key, Duration.ofSeconds(ttl));
-		
+
+		return codec.encode(req, timeStamp, resolveTtl(req), resolveMode(req));
+	}
+
+	// Mode 이름(대소문자 무시)만 기록한다.
+	private static String resolveMode(DamageDto req) {
+		if (isBlank(req.getMode())) return null;
+		for (Mode m : Mode.values()) {
+			if (m.name().equalsIgnoreCase(req.getMode().trim())) return m.name();
+		}
+		return null;
 	}
-	
+
+	// 0 => 서버 기본 보관 기간, 그 외에는 서버 보관 기간을 넘지 않게 자른다.
+	private long resolveTtl(DamageDto req) {
+		return (req.getTtlSeconds()!= null && req.getTtlSeconds() > 0) ? Math.min(req.getTtlSeconds(), maxTtlSeconds) : 0L;
+	}
+
 	/**
-	 * Log에 저장된 게임 데이터에 대한 분석된 정보 가져오기
-	 * @param
-	 * @return
+	 * 필수 값 검사 (DamageDto 의 @NotBlank 필드)
+	 * matchId / attackerId 는 buffer key (game:prod:kill:{matchId}:{attackerId}) 가 되므로 ':' 를 넣을 수 없다.
+	 * (flush / reconcile 이 key 의 마지막 ':' 앞을 matchId 로 읽는다.)
+	 * @return 잘못된 이유, 문제 없으면 null
 	 **/
-	public void getGameInfo() {	
-		
-		
-		
+	public String validate(DamageDto req) {
+		if (req == null) return "empty event";
+		if (isBlank(req.getMatchId())) return "matchId is blank";
+		if (isBlank(req.getAttackerId())) return "attackerId is blank";
+		if (req.getMatchId().indexOf(':') >= 0) return "matchId must not contain ':'";
+		if (req.getAttackerId().indexOf(':') >= 0) return "attackerId must not contain ':'";
+		if (isBlank(req.getHitId())) return "hitId is blank";
+		return null;
+	}
+
+	private static boolean isBlank(String s) {
+		return s == null || s.isBlank();
+	}
+
+	private static String groupFailure(List<Object> pipelined, int offset, int count) {
+		if (pipelined == null || count == 0 || pipelined.size() < offset + count) {
+			return "redis unavailable";
+		}
+		for (int i = offset; i < offset + count; i++) {
+			if (pipelined.get(i) instanceof Exception e) {
+				return "redis error: " + e.getMessage();
+			}
+		}
+		return null;
 	}
-	
-	
+
 }
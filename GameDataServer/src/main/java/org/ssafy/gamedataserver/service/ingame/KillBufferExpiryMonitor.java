@@ -0,0 +1,163 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * flush 되기 전에 사라진 Kill buffer key 를 센다.
+ *
+ * buffer 에는 TTL 을 걸지 않으므로 kill.buffer.keys.lost 는 항상 0 이어야 한다.
+ * 0 이 아니면 이전 버전이 남긴 TTL key 가 만료됐거나 (cause=expired)
+ * Redis maxmemory 정책으로 key 가 밀려난 것이다. (cause=evicted)
+ *
+ * key 가 사라진 뒤에는 안에 몇 개의 이벤트가 있었는지 알 수 없으므로 이벤트가 아니라 사라진 key 수를 센다.
+ *
+ * 운영 전제 : Redis 서버 설정에 notify-keyspace-events 로 K (keyspace channel) + x (expired) + e (evicted) 가 켜져 있어야 한다.
+ * (앱에서는 CONFIG SET 을 하지 않는다. 시작할 때 읽을 수 있으면 빠진 flag 만 경고한다.)
+ *  - buffer prefix 의 keyspace channel (__keyspace@*__:game:prod:kill...) 만 구독하므로 다른 key 의 알림은 받지 않는다.
+ *  - 모든 서버가 받으면 서버 수만큼 중복으로 세므로 leader lock 을 잡은 서버 하나만 구독한다. (renew-ms 마다 갱신)
+ **/
+@Slf4j
+@Component
+public class KillBufferExpiryMonitor {
+
+	public static final String LEADER_KEY = "game:prod:killbuffer:monitor:leader";
+
+	private static final String NOTIFY_CONFIG = "notify-keyspace-events";
+
+	// 내가 잡은 lock 일 때만 연장 / 해제한다.
+	private static final String RENEW_LUA =
+			"if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0";
+	private static final String RESIGN_LUA =
+			"if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0";
+	private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(RENEW_LUA, Long.class);
+	private static final DefaultRedisScript<Long> RESIGN_SCRIPT = new DefaultRedisScript<>(RESIGN_LUA, Long.class);
+
+	private static final List<Topic> TOPICS = List.of(
+			new PatternTopic("__keyspace@*__:" + KillBufferWriter.LIST_PREFIX + "*"),
+			new PatternTopic("__keyspace@*__:" + KillBufferWriter.INFLIGHT_PREFIX + "*"),
+			new PatternTopic("__keyspace@*__:" + KillBufferWriter.STREAM_PREFIX + "*"));
+
+	private final StringRedisTemplate redis;
+	private final RedisMessageListenerContainer container;
+	private final boolean enabled;
+	private final long leaseMillis;
+	private final String instanceId = UUID.randomUUID().toString();
+	private final MessageListener listener = (message, pattern) -> onEvent(message);
+
+	private final Counter expiredCounter;
+	private final Counter evictedCounter;
+
+	private volatile boolean leader;
+
+	public KillBufferExpiryMonitor(StringRedisTemplate redis, RedisMessageListenerContainer container, MeterRegistry meters,
+			@Value("${game.kill.retention.monitor-expiry:true}") boolean enabled,
+			@Value("${game.kill.retention.monitor-renew-ms:10000}") long renewMillis) {
+		this.redis = redis;
+		this.container = container;
+		this.enabled = enabled;
+		// 갱신을 두 번 놓치면 다른 서버가 이어받는다.
+		this.leaseMillis = Math.max(1000, renewMillis) * 3;
+		this.expiredCounter = Counter.builder("kill.buffer.keys.lost")
+				.description("flush 전에 사라진 Kill buffer key 수 (이벤트 수가 아님)")
+				.tag("cause", "expired").register(meters);
+		this.evictedCounter = Counter.builder("kill.buffer.keys.lost")
+				.description("flush 전에 사라진 Kill buffer key 수 (이벤트 수가 아님)")
+				.tag("cause", "evicted").register(meters);
+	}
+
+	@PostConstruct
+	public void checkNotifications() {
+		if (!enabled) return;
+		try {
+			Properties current = redis.execute((RedisConnection conn) -> conn.serverCommands().getConfig(NOTIFY_CONFIG));
+			String flags = current == null ? "" : current.getProperty(NOTIFY_CONFIG, "");
+			// 'A' 는 x, e 를 포함한다.
+			boolean ok = flags.indexOf('K') >= 0 && (flags.indexOf('A') >= 0 || (flags.indexOf('x') >= 0 && flags.indexOf('e') >= 0));
+			if (!ok) {
+				log.warn("Redis {}='{}' is missing K/x/e, kill.buffer.keys.lost will stay 0", NOTIFY_CONFIG, flags);
+			}
+		} catch (Exception e) {
+			// managed Redis 등 CONFIG 가 막혀 있으면 확인만 건너뛴다.
+			log.debug("Could not read {}: {}", NOTIFY_CONFIG, e.getMessage());
+		}
+	}
+
+	/**
+	 * leader lock 을 잡거나 연장하고, 결과에 따라 구독을 켜고 끈다.
+	 **/
+	@Scheduled(fixedDelayString = "${game.kill.retention.monitor-renew-ms:10000}")
+	public void elect() {
+		if (!enabled) return;
+		boolean held;
+		try {
+			if (leader) {
+				Long renewed = redis.execute(RENEW_SCRIPT, List.of(LEADER_KEY), instanceId, Long.toString(leaseMillis));
+				held = renewed != null && renewed > 0;
+			} else {
+				held = Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(LEADER_KEY, instanceId, leaseMillis, TimeUnit.MILLISECONDS));
+			}
+		} catch (Exception e) {
+			// Redis 를 못 쓰면 lock 이 만료되어 다른 서버가 이어받을 수 있으므로 내려놓는다.
+			log.warn("Failed to renew kill buffer monitor lock: {}", e.getMessage());
+			held = false;
+		}
+		if (held && !leader) {
+			container.addMessageListener(listener, TOPICS);
+			leader = true;
+			log.info("Kill buffer expiry monitor started on this node");
+		} else if (!held && leader) {
+			container.removeMessageListener(listener);
+			leader = false;
+			log.info("Kill buffer expiry monitor handed over to another node");
+		}
+	}
+
+	@PreDestroy
+	public void resign() {
+		if (!leader) return;
+		container.removeMessageListener(listener);
+		leader = false;
+		try {
+			redis.execute(RESIGN_SCRIPT, List.of(LEADER_KEY), instanceId);
+		} catch (Exception e) {
+			log.debug("Failed to release kill buffer monitor lock: {}", e.getMessage());
+		}
+	}
+
+	// channel = __keyspace@{db}__:{key}, body = 이벤트 이름 (del / lpush / expired / evicted ...)
+	private void onEvent(Message message) {
+		String event = new String(message.getBody(), StandardCharsets.UTF_8);
+		Counter counter = switch (event) {
+			case "expired" -> expiredCounter;
+			case "evicted" -> evictedCounter;
+			default -> null;
+		};
+		if (counter == null) return;
+		counter.increment();
+		String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+		log.warn("Kill buffer lost before flush ({}): {}", event, channel.substring(channel.indexOf("__:") + 3));
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.stereotype.Component;
+
+/**
+ * 인코딩된 Kill 이벤트를 Redis buffer 에 쓰는 명령을 만든다.
+ * game.kill.ingest-mode 에 따라 List(LPUSH) 또는 Stream(XADD) 으로 쓴다.
+ * pipeline 안에서 호출되므로 여기서는 명령만 보내고 결과는 호출한 쪽에서 확인한다.
+ *
+ * flush 전의 buffer 에는 TTL 을 걸지 않는다. (flush 가 늦어져도 이벤트가 만료로 사라지지 않는다.)
+ * buffer 크기는 KillIngestAdmission 이 high-water mark 로 제한하고,
+ * flush 된 이벤트의 보관 기간은 kill_events 의 expireAt (KillEventSink) 으로 정한다.
+ **/
+@Component
+public class KillBufferWriter {
+
+	public static final String LIST_PREFIX = "game:prod:kill:";        // game:prod:kill:{matchId}:{attackerId}
+	public static final String STREAM_PREFIX = "game:prod:killstream:"; // game:prod:killstream:{shard}
+	public static final String INFLIGHT_PREFIX = "game:prod:killinflight:"; // FlushService 가 Mongo 쓰기 전까지 옮겨두는 List
+	public static final byte[] STREAM_FIELD = "e".getBytes(StandardCharsets.UTF_8);
+	// record 를 디코딩하지 못해도 depth 를 release 할 수 있도록 matchId 를 따로 남긴다.
+	public static final byte[] STREAM_MATCH_FIELD = "m".getBytes(StandardCharsets.UTF_8);
+
+	private final KillIngestMode mode;
+	private final int shards;
+
+	public KillBufferWriter(
+			@Value("${game.kill.ingest-mode:list}") String mode,
+			@Value("${game.kill.stream.shards:8}") int shards) {
+		this.mode = KillIngestMode.valueOf(mode.trim().toUpperCase());
+		this.shards = Math.max(1, shards);
+	}
+
+	public KillIngestMode getMode() {
+		return mode;
+	}
+
+	public int getShards() {
+		return shards;
+	}
+
+	public static String listKey(String matchId, String attackerId) {
+		return LIST_PREFIX + matchId + ":" + attackerId;
+	}
+
+	public static byte[] streamKey(int shard) {
+		return (STREAM_PREFIX + shard).getBytes(StandardCharsets.UTF_8);
+	}
+
+	// 같은 match 의 이벤트는 항상 같은 shard 로 보낸다.
+	public int shardOf(String matchId) {
+		return Math.floorMod(matchId.hashCode(), shards);
+	}
+
+	/**
+	 * 같은 matchId:attackerId 의 이벤트들을 buffer 에 추가한다.
+	 * @return 보낸 Redis 명령 수 (pipeline 결과에서 이 그룹이 차지하는 칸 수)
+	 **/
+	public int append(RedisConnection conn, String matchId, String attackerId, byte[][] values) {
+		if (mode == KillIngestMode.STREAM) {
+			byte[] key = streamKey(shardOf(matchId));
+			byte[] match = matchId.getBytes(StandardCharsets.UTF_8);
+			for (byte[] value : values) {
+				conn.streamCommands().xAdd(StreamRecords.rawBytes(Map.of(STREAM_FIELD, value, STREAM_MATCH_FIELD, match)).withStreamKey(key));
+			}
+			return values.length;
+		}
+		byte[] key = listKey(matchId, attackerId).getBytes(StandardCharsets.UTF_8);
+		conn.listCommands().lPush(key, values);
+		return 1;
+	}
+
+}
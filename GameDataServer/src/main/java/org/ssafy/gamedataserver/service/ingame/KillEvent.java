@@ -0,0 +1,31 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.util.Date;
+
+import org.bson.Document;
+
+/**
+ * Redis buffer 에서 꺼낸 Kill 이벤트 한 건 (JSON / binary record 공통)
+ * ttlSeconds : client 가 요청한 kill_events 보관 기간 (0 이면 서버 기본값, KillEventSink 참고)
+ * mode       : Mode 이름 또는 null
+ **/
+public record KillEvent(String matchId, String attackerId, String hitId, int damage, String weapon, long ts, long ttlSeconds, String mode) {
+
+	// 일반 kill_events 컬렉션에 들어갈 Document (ts 는 BSON Date, time-series 형태는 KillEventSink)
+	public Document toDocument() {
+		Document doc = new Document()
+				.append("matchId",     matchId)
+				.append("attackerId",  attackerId)
+				.append("hitId",       hitId)
+				.append("damage",      damage)
+				.append("weapon",      weapon)
+				.append("ts",          new Date(tsOrNow()));
+		if (mode != null) doc.append("mode", mode);
+		return doc;
+	}
+
+	public long tsOrNow() {
+		return ts > 0 ? ts : System.currentTimeMillis();
+	}
+
+}
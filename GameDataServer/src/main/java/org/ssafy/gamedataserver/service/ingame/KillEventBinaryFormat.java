@@ -0,0 +1,192 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.ssafy.gamedataserver.entity.battle.Weapon;
+
+/**
+ * Kill 이벤트 binary record (version 1, 2)
+ *
+ * [0]      version (0x01 | 0x02) => JSON record 의 첫 byte '{' (0x7B) 와 겹치지 않는다.
+ * varint   ts (epoch millis)
+ * zigzag   damage
+ * [1]      weapon => Weapon ordinal, WEAPON_NULL, 또는 WEAPON_CUSTOM (+ string)
+ * string   matchId, attackerId, hitId
+ * --- version 2 만 (ttl, mode 가 모두 없으면 version 1 로 쓴다.)
+ * varint   ttlSeconds (0 = 없음)
+ * string   mode (record 가 여기서 끝나면 null)
+ *
+ * string = varint (UTF-8 길이 + 1) + UTF-8 bytes, 길이 값 0 은 null.
+ * 필드 이름이 반복되지 않으므로 JSON record(~150 byte)의 1/3 정도 크기가 된다.
+ **/
+public final class KillEventBinaryFormat {
+
+	public static final byte VERSION_1 = 0x01;
+	public static final byte VERSION_2 = 0x02;
+
+	private static final int WEAPON_NULL = 0xFE;
+	private static final int WEAPON_CUSTOM = 0xFF;
+	private static final Weapon[] WEAPONS = Weapon.values();
+
+	private static final int INITIAL_CAPACITY = 128;
+	private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+	private static final ThreadLocal<byte[][]> LOCAL = ThreadLocal.withInitial(() -> new byte[][] { new byte[INITIAL_CAPACITY] });
+
+	private KillEventBinaryFormat() {
+	}
+
+	public static byte[] encode(String matchId, String attackerId, String hitId, int damage, String weapon, long timeStamp) {
+		return encode(matchId, attackerId, hitId, damage, weapon, timeStamp, 0L, null);
+	}
+
+	public static byte[] encode(String matchId, String attackerId, String hitId, int damage, String weapon, long timeStamp, long ttlSeconds, String mode) {
+		byte[][] holder = LOCAL.get();
+		Writer w = new Writer(holder[0]);
+		boolean extended = ttlSeconds > 0 || mode != null;
+		w.put(extended ? VERSION_2 : VERSION_1);
+		w.varint(timeStamp);
+		w.varint(((damage << 1) ^ (damage >> 31)) & 0xFFFFFFFFL);
+		int ordinal = weaponOrdinal(weapon);
+		w.put((byte) ordinal);
+		if (ordinal == WEAPON_CUSTOM) {
+			w.string(weapon);
+		}
+		w.string(matchId);
+		w.string(attackerId);
+		w.string(hitId);
+		if (extended) {
+			w.varint(Math.max(0L, ttlSeconds));
+			w.string(mode);
+		}
+		byte[] out = Arrays.copyOf(w.buf, w.pos);
+		holder[0] = w.buf.length > MAX_RETAINED_CAPACITY ? new byte[INITIAL_CAPACITY] : w.buf;
+		return out;
+	}
+
+	public static boolean isBinary(byte[] raw) {
+		return raw != null && raw.length > 0 && (raw[0] == VERSION_1 || raw[0] == VERSION_2);
+	}
+
+	/**
+	 * @throws IllegalArgumentException 지원하지 않는 version, 잘린 record, 알 수 없는 weapon ordinal
+	 **/
+	public static KillEvent decode(byte[] raw) {
+		Reader r = new Reader(raw);
+		byte version = r.get();
+		if (version != VERSION_1 && version != VERSION_2) {
+			throw new IllegalArgumentException("Unsupported kill event version: " + version);
+		}
+		long ts = r.varint();
+		int zz = (int) r.varint();
+		int damage = (zz >>> 1) ^ -(zz & 1);
+		int ordinal = r.get() & 0xFF;
+		String weapon;
+		if (ordinal == WEAPON_NULL) {
+			weapon = null;
+		} else if (ordinal == WEAPON_CUSTOM) {
+			weapon = r.string();
+		} else if (ordinal < WEAPONS.length) {
+			weapon = WEAPONS[ordinal].name();
+		} else {
+			throw new IllegalArgumentException("Unknown weapon ordinal: " + ordinal);
+		}
+		String matchId = r.string();
+		String attackerId = r.string();
+		String hitId = r.string();
+		long ttl = 0L;
+		String mode = null;
+		if (version == VERSION_2) {
+			ttl = r.varint();
+			if (r.pos < raw.length) mode = r.string();
+		}
+		return new KillEvent(matchId, attackerId, hitId, damage, weapon, ts, ttl, mode);
+	}
+
+	// Weapon enum 이름(대소문자 무시)이면 ordinal, 아니면 문자열 그대로 저장한다.
+	private static int weaponOrdinal(String weapon) {
+		if (weapon == null) return WEAPON_NULL;
+		for (Weapon w : WEAPONS) {
+			if (w.name().equalsIgnoreCase(weapon)) return w.ordinal();
+		}
+		return WEAPON_CUSTOM;
+	}
+
+	private static final class Writer {
+		private byte[] buf;
+		private int pos;
+
+		private Writer(byte[] buf) {
+			this.buf = buf;
+		}
+
+		private void put(byte b) {
+			ensure(1);
+			buf[pos++] = b;
+		}
+
+		private void varint(long v) {
+			ensure(10);
+			while ((v & ~0x7FL) != 0) {
+				buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[pos++] = (byte) v;
+		}
+
+		private void string(String s) {
+			if (s == null) {
+				varint(0);
+				return;
+			}
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			varint(b.length + 1L);
+			ensure(b.length);
+			System.arraycopy(b, 0, buf, pos, b.length);
+			pos += b.length;
+		}
+
+		private void ensure(int extra) {
+			if (pos + extra > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+			}
+		}
+	}
+
+	private static final class Reader {
+		private final byte[] buf;
+		private int pos;
+
+		private Reader(byte[] buf) {
+			this.buf = buf;
+		}
+
+		private byte get() {
+			if (pos >= buf.length) throw new IllegalArgumentException("Truncated kill event");
+			return buf[pos++];
+		}
+
+		private long varint() {
+			long v = 0;
+			int shift = 0;
+			while (true) {
+				byte b = get();
+				v |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) return v;
+				shift += 7;
+				if (shift > 63) throw new IllegalArgumentException("Malformed varint");
+			}
+		}
+
+		private String string() {
+			long len = varint();
+			if (len == 0) return null;
+			if (len < 0 || len - 1 > buf.length - pos) throw new IllegalArgumentException("Truncated kill event");
+			String s = new String(buf, pos, (int) len - 1, StandardCharsets.UTF_8);
+			pos += (int) len - 1;
+			return s;
+		}
+	}
+
+}
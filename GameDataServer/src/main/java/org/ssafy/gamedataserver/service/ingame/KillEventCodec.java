@@ -0,0 +1,80 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.ssafy.gamedataserver.dto.ingame.DamageDto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Kill 이벤트 Redis record 인코딩 / 디코딩
+ * 쓰기 형식은 game.kill.format (json | binary) 으로 정하고,
+ * 읽기는 첫 byte 로 형식을 구분해서 둘 다 처리한다.
+ **/
+@Component
+public class KillEventCodec {
+
+	private final KillEventFormat format;
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	public KillEventCodec(@Value("${game.kill.format:json}") String format) {
+		this.format = KillEventFormat.valueOf(format.trim().toUpperCase());
+	}
+
+	public KillEventFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @param ttlSeconds kill_events 보관 기간 (0 이면 기록하지 않음 => 서버 기본값)
+	 * @param mode Mode 이름 (null 이면 기록하지 않음)
+	 **/
+	public byte[] encode(DamageDto req, long timeStamp, long ttlSeconds, String mode) {
+		if (format == KillEventFormat.BINARY) {
+			return KillEventBinaryFormat.encode(req.getMatchId(), req.getAttackerId(), req.getHitId(), req.getDamage(), req.getWeapon(), timeStamp, ttlSeconds, mode);
+		}
+		return KillEventEncoder.encode(req.getMatchId(), req.getAttackerId(), req.getHitId(), req.getDamage(), req.getWeapon(), timeStamp, ttlSeconds, mode);
+	}
+
+	public KillEvent decode(byte[] raw) throws IOException {
+		if (KillEventBinaryFormat.isBinary(raw)) {
+			return KillEventBinaryFormat.decode(raw);
+		}
+		return decodeJson(raw);
+	}
+
+	// JsonNode tree 를 만들지 않고 token 단위로 읽는다.
+	private KillEvent decodeJson(byte[] raw) throws IOException {
+		String matchId = null, attackerId = null, hitId = null, weapon = null, mode = null;
+		int damage = 0;
+		long ts = 0L, ttl = 0L;
+		try (JsonParser p = jsonFactory.createParser(raw)) {
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Kill event is not a JSON object");
+			}
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				String field = p.getCurrentName();
+				JsonToken t = p.nextToken();
+				switch (field) {
+					case "matchId" -> matchId = p.getValueAsString();
+					case "attackerId" -> attackerId = p.getValueAsString();
+					case "hitId" -> hitId = p.getValueAsString();
+					case "weapon" -> weapon = p.getValueAsString();
+					case "damage" -> damage = p.getValueAsInt(0);
+					case "ts" -> ts = p.getValueAsLong(0L);
+					case "ttl" -> ttl = p.getValueAsLong(0L);
+					case "mode" -> mode = p.getValueAsString();
+					default -> {
+						if (t.isStructStart()) p.skipChildren();
+					}
+				}
+			}
+		}
+		return new KillEvent(matchId, attackerId, hitId, damage, weapon, ts, ttl, mode);
+	}
+
+}
@@ -0,0 +1,162 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Kill 이벤트를 Redis에 저장될 JSON byte[] 로 바로 인코딩한다.
+ * String.format / 중간 String 생성 없이 Thread 별로 재사용하는 byte buffer에 UTF-8로 쓴다.
+ * 문자열 값은 JSON escape 되므로 따옴표가 들어간 weapon 이름도 FlushService에서 정상적으로 읽힌다.
+ **/
+public final class KillEventEncoder {
+
+	private static final int INITIAL_CAPACITY = 256;
+	// 비정상적으로 긴 값으로 커진 buffer는 Thread에 계속 붙잡아 두지 않는다.
+	private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] F_MATCH_ID    = "{\"matchId\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_ATTACKER_ID = ",\"attackerId\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_HIT_ID      = ",\"hitId\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_DAMAGE      = ",\"damage\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_WEAPON      = ",\"weapon\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_TS          = ",\"ts\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_TTL         = ",\"ttl\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] F_MODE        = ",\"mode\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NULL          = "null".getBytes(StandardCharsets.US_ASCII);
+
+	private static final ThreadLocal<KillEventEncoder> LOCAL = ThreadLocal.withInitial(KillEventEncoder::new);
+
+	private byte[] buf = new byte[INITIAL_CAPACITY];
+	private int pos;
+
+	private KillEventEncoder() {
+	}
+
+	/**
+	 * @return Redis에 그대로 전달할 수 있는 JSON byte[] (호출자 소유의 새 배열)
+	 **/
+	public static byte[] encode(String matchId, String attackerId, String hitId, int damage, String weapon, long timeStamp) {
+		return encode(matchId, attackerId, hitId, damage, weapon, timeStamp, 0L, null);
+	}
+
+	/**
+	 * @param ttlSeconds 0 보다 클 때만 "ttl" 필드를 쓴다.
+	 * @param mode null 이 아닐 때만 "mode" 필드를 쓴다.
+	 **/
+	public static byte[] encode(String matchId, String attackerId, String hitId, int damage, String weapon, long timeStamp, long ttlSeconds, String mode) {
+		KillEventEncoder w = LOCAL.get();
+		w.pos = 0;
+		w.raw(F_MATCH_ID);
+		w.string(matchId);
+		w.raw(F_ATTACKER_ID);
+		w.string(attackerId);
+		w.raw(F_HIT_ID);
+		w.string(hitId);
+		w.raw(F_DAMAGE);
+		w.number(damage);
+		w.raw(F_WEAPON);
+		w.string(weapon);
+		w.raw(F_TS);
+		w.number(timeStamp);
+		if (ttlSeconds > 0) {
+			w.raw(F_TTL);
+			w.number(ttlSeconds);
+		}
+		if (mode != null) {
+			w.raw(F_MODE);
+			w.string(mode);
+		}
+		w.ensure(1);
+		w.buf[w.pos++] = '}';
+		byte[] out = Arrays.copyOf(w.buf, w.pos);
+		if (w.buf.length > MAX_RETAINED_CAPACITY) {
+			w.buf = new byte[INITIAL_CAPACITY];
+		}
+		return out;
+	}
+
+	private void raw(byte[] b) {
+		ensure(b.length);
+		System.arraycopy(b, 0, buf, pos, b.length);
+		pos += b.length;
+	}
+
+	private void string(String s) {
+		if (s == null) {
+			raw(NULL);
+			return;
+		}
+		// 최악의 경우 (문자당 \\uXXXX 6 byte) 기준으로 한 번만 확보한다.
+		ensure(s.length() * 6 + 2);
+		byte[] b = buf;
+		int p = pos;
+		b[p++] = '"';
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				if (c == '"' || c == '\\') {
+					b[p++] = '\\';
+					b[p++] = (byte) c;
+				} else if (c < 0x20) {
+					b[p++] = '\\';
+					b[p++] = 'u';
+					b[p++] = '0';
+					b[p++] = '0';
+					b[p++] = HEX[c >> 4];
+					b[p++] = HEX[c & 0xF];
+				} else {
+					b[p++] = (byte) c;
+				}
+			} else if (c < 0x800) {
+				b[p++] = (byte) (0xC0 | (c >> 6));
+				b[p++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				b[p++] = (byte) (0xF0 | (cp >> 18));
+				b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				b[p++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// 짝이 맞지 않는 surrogate => '?' (String.getBytes(UTF_8) 와 동일)
+				b[p++] = '?';
+			} else {
+				b[p++] = (byte) (0xE0 | (c >> 12));
+				b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				b[p++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		b[p++] = '"';
+		pos = p;
+	}
+
+	private void number(long v) {
+		ensure(20);
+		if (v == Long.MIN_VALUE) {
+			raw(Long.toString(v).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+		if (v < 0) {
+			buf[pos++] = '-';
+			v = -v;
+		}
+		int start = pos;
+		do {
+			buf[pos++] = (byte) ('0' + (v % 10));
+			v /= 10;
+		} while (v != 0);
+		// 뒤에서부터 쓴 숫자를 뒤집는다.
+		for (int i = start, j = pos - 1; i < j; i++, j--) {
+			byte t = buf[i];
+			buf[i] = buf[j];
+			buf[j] = t;
+		}
+	}
+
+	private void ensure(int extra) {
+		if (pos + extra > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+		}
+	}
+
+}
@@ -0,0 +1,10 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+/**
+ * Redis buffer 에 저장되는 Kill 이벤트 형식 (game.kill.format)
+ * 읽을 때는 첫 byte 로 구분하므로 형식을 바꿔도 이미 쌓인 데이터는 그대로 flush 된다.
+ **/
+public enum KillEventFormat {
+	JSON,
+	BINARY,
+}
@@ -0,0 +1,14 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.util.List;
+
+/**
+ * kill_events 에 새로 들어간 이벤트를 받는 후처리 단계 (rollup 등)
+ * KillEventSink 가 bulkWrite 직후 같은 thread 에서 호출한다.
+ * 이미 있던 (matchId, hitId) 중복이나 쓰기에 실패한 이벤트는 전달하지 않는다.
+ **/
+public interface KillEventListener {
+
+	void onInserted(List<KillEvent> events);
+
+}
@@ -0,0 +1,287 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * kill_events 로 가는 Mongo 쓰기 경로
+ *  - unordered bulkWrite : 한 document 가 실패해도 나머지는 계속 들어간다.
+ *  - write concern w:1, journal off : 분석용 데이터이므로 primary 메모리 반영까지만 기다린다.
+ *  - 실패한 document 는 index / code / message 를 남긴다.
+ *  - 재전송 / flush 재시도 중복 제거 : (matchId, hitId) 기준
+ *    일반 컬렉션 => unique index + $setOnInsert upsert
+ *    time-series => unique index / upsert 를 쓸 수 없으므로 (meta.matchId, hitId) index 로 batch 마다 한 번 조회해서 거른다.
+ *                   조회와 insert 사이가 원자적이지 않아서 같은 이벤트를 동시에 쓰면 중복될 수 있다.
+ *                   (in-flight 재시도 / XCLAIM 이 겹치는 경우) => 중복 없이 집계해야 하면 일반 컬렉션 (기본값) 을 쓴다.
+ *  - 보관 기간 : time-series 는 컬렉션의 expireAfterSeconds (KillEventsTtlManager),
+ *    일반 컬렉션은 document 마다 expireAt (이벤트 ts + client ttl, 서버 보관 기간이 상한) + TTL index.
+ *  - 새로 들어간 이벤트만 KillEventListener (rollup 등) 에 넘긴다. => 재시도 중복은 집계되지 않는다.
+ *
+ * batch 는 flusher 의 worker 마다 하나씩 만들어 쓰며 (newBatch),
+ * batch-size 에 도달하거나 첫 이벤트가 max-latency 보다 오래 기다리면 쓴다.
+ **/
+@Slf4j
+@Component
+public class KillEventSink {
+
+	public static final String COLL_NAME = KillEventsTtlManager.COLL_NAME;
+	private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+	private final MongoTemplate mongo;
+	private final KillEventsTtlManager collectionManager;
+	private final ObjectProvider<KillEventListener> listeners;
+	private final int batchSize;
+	private final long maxLatencyNanos;
+	private final long retentionMillis;
+
+	private final Counter insertedCounter;
+	private final Counter failedCounter;
+	private final Counter duplicateCounter;
+
+	public KillEventSink(MongoTemplate mongo, KillEventsTtlManager collectionManager, ObjectProvider<KillEventListener> listeners,
+			MeterRegistry meters,
+			@Value("${game.kill.sink.batch-size:1000}") int batchSize,
+			@Value("${game.kill.sink.max-latency-ms:500}") long maxLatencyMs,
+			@Value("${game.kill.retention.flushed-days:90}") long retentionDays) {
+		this.mongo = mongo;
+		this.collectionManager = collectionManager;
+		this.listeners = listeners;
+		this.batchSize = Math.max(1, batchSize);
+		this.maxLatencyNanos = maxLatencyMs * 1_000_000L;
+		this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+		this.insertedCounter = Counter.builder("kill.sink.inserted").register(meters);
+		this.failedCounter = Counter.builder("kill.sink.failed").register(meters);
+		this.duplicateCounter = Counter.builder("kill.sink.duplicates").register(meters);
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	private MongoCollection<Document> collection() {
+		return mongo.getCollection(COLL_NAME).withWriteConcern(WriteConcern.W1.withJournal(false));
+	}
+
+	// kill_events document (time-series 는 meta 아래에 matchId / attackerId / weapon)
+	private Document toDocument(KillEvent event, boolean timeSeries) {
+		if (!timeSeries) {
+			long base = event.tsOrNow();
+			long ttlMillis = event.ttlSeconds() > 0 ? Math.min(TimeUnit.SECONDS.toMillis(event.ttlSeconds()), retentionMillis) : retentionMillis;
+			return event.toDocument().append("expireAt", new Date(base + ttlMillis));
+		}
+		Document doc = new Document()
+				.append("ts",     new Date(event.tsOrNow()))
+				.append("meta",   new Document("matchId", event.matchId())
+						.append("attackerId", event.attackerId())
+						.append("weapon", event.weapon()))
+				.append("hitId",  event.hitId())
+				.append("damage", event.damage());
+		if (event.mode() != null) doc.append("mode", event.mode());
+		return doc;
+	}
+
+	/**
+	 * events 를 한 번의 unordered bulkWrite 로 쓴다.
+	 * 이미 있는 (matchId, hitId) 는 건너뛰고 (duplicates), 개별 document 오류는 결과에 담는다.
+	 * 연결 오류 등 batch 전체 실패는 예외로 던진다. => 호출한 쪽은 원본을 지우지 않고 다시 시도한다.
+	 **/
+	public WriteResult write(List<KillEvent> events) {
+		if (events.isEmpty()) return new WriteResult(0, 0, List.of());
+		boolean timeSeries = collectionManager.isTimeSeries();
+
+		// time-series : 이미 들어간 (matchId, hitId) 와 batch 안의 중복은 보내지 않는다.
+		Set<String> existing = timeSeries ? existingKeys(events) : Set.of();
+		int skipped = 0;
+
+		List<WriteModel<Document>> models = new ArrayList<>(events.size());
+		// models index => events index
+		int[] origin = new int[events.size()];
+		// 새로 들어간 이벤트 index : InsertOneModel 은 미리 표시하고 (upsert 결과에 나오지 않음),
+		// upsert 로 들어간 것은 결과에서 더하고, 오류가 난 것은 뺀다.
+		BitSet inserted = new BitSet(events.size());
+		for (int i = 0; i < events.size(); i++) {
+			KillEvent event = events.get(i);
+			if (timeSeries && event.matchId() != null && event.hitId() != null
+					&& !existing.add(dedupeKey(event.matchId(), event.hitId()))) {
+				skipped++;
+				continue;
+			}
+			WriteModel<Document> model = toModel(toDocument(event, timeSeries), event, timeSeries);
+			if (model instanceof InsertOneModel) inserted.set(i);
+			origin[models.size()] = i;
+			models.add(model);
+		}
+
+		WriteResult result;
+		if (models.isEmpty()) {
+			result = new WriteResult(0, skipped, List.of());
+		} else {
+			try {
+				var r = collection().bulkWrite(models, new BulkWriteOptions().ordered(false));
+				for (BulkWriteUpsert u : r.getUpserts()) inserted.set(origin[u.getIndex()]);
+				result = new WriteResult(r.getInsertedCount() + r.getUpserts().size(), r.getMatchedCount() + skipped, List.of());
+			} catch (MongoBulkWriteException e) {
+				var r = e.getWriteResult();
+				for (BulkWriteUpsert u : r.getUpserts()) inserted.set(origin[u.getIndex()]);
+				int duplicates = r.getMatchedCount() + skipped;
+				List<BulkWriteError> errors = new ArrayList<>();
+				for (BulkWriteError err : e.getWriteErrors()) {
+					inserted.clear(origin[err.getIndex()]);
+					// 동시에 같은 key 로 upsert 한 경우 => 이미 들어간 것이므로 중복으로 본다.
+					if (ErrorCategory.fromErrorCode(err.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+						duplicates++;
+						continue;
+					}
+					log.warn("[KILL SINK] document {} rejected: code={} {}", origin[err.getIndex()], err.getCode(), err.getMessage());
+					errors.add(err);
+				}
+				if (e.getWriteConcernError() != null) {
+					log.warn("[KILL SINK] write concern error: {}", e.getWriteConcernError().getMessage());
+				}
+				result = new WriteResult(r.getInsertedCount() + r.getUpserts().size(), duplicates, errors);
+			}
+		}
+		insertedCounter.increment(result.inserted());
+		duplicateCounter.increment(result.duplicates());
+		failedCounter.increment(result.errors().size());
+		notifyInserted(events, inserted);
+		return result;
+	}
+
+	// (meta.matchId, hitId) index 로 batch 에 있는 key 중 이미 들어간 것을 한 번에 찾는다.
+	private Set<String> existingKeys(List<KillEvent> events) {
+		Set<String> matchIds = new HashSet<>();
+		Set<String> hitIds = new HashSet<>();
+		for (KillEvent e : events) {
+			if (e.matchId() == null || e.hitId() == null) continue;
+			matchIds.add(e.matchId());
+			hitIds.add(e.hitId());
+		}
+		Set<String> existing = new HashSet<>();
+		if (matchIds.isEmpty()) return existing;
+		for (Document d : collection()
+				.find(Filters.and(Filters.in("meta.matchId", matchIds), Filters.in("hitId", hitIds)))
+				.projection(Projections.fields(Projections.include("meta.matchId", "hitId"), Projections.excludeId()))) {
+			Document meta = d.get("meta", Document.class);
+			if (meta != null) existing.add(dedupeKey(meta.getString("matchId"), d.getString("hitId")));
+		}
+		return existing;
+	}
+
+	private static String dedupeKey(String matchId, String hitId) {
+		return matchId + '\u0000' + hitId;
+	}
+
+	private void notifyInserted(List<KillEvent> events, BitSet inserted) {
+		if (inserted.isEmpty()) return;
+		List<KillEvent> fresh = new ArrayList<>(inserted.cardinality());
+		for (int i = inserted.nextSetBit(0); i >= 0; i = inserted.nextSetBit(i + 1)) {
+			fresh.add(events.get(i));
+		}
+		listeners.orderedStream().forEach(l -> {
+			try {
+				l.onInserted(fresh);
+			} catch (Exception e) {
+				// 후처리 실패로 원본(Redis buffer) 을 다시 쓰지 않는다. => 다시 써도 중복이라 전달되지 않는다.
+				log.warn("[KILL SINK] listener {} failed: {}", l.getClass().getSimpleName(), e.getMessage());
+			}
+		});
+	}
+
+	private static WriteModel<Document> toModel(Document doc, KillEvent event, boolean timeSeries) {
+		if (timeSeries || event.matchId() == null || event.hitId() == null) {
+			return new InsertOneModel<>(doc);
+		}
+		return new UpdateOneModel<>(
+				Filters.and(Filters.eq("matchId", event.matchId()), Filters.eq("hitId", event.hitId())),
+				new Document("$setOnInsert", doc),
+				UPSERT);
+	}
+
+	public Batch newBatch() {
+		return new Batch();
+	}
+
+	public record WriteResult(int inserted, int duplicates, List<BulkWriteError> errors) {
+	}
+
+	/**
+	 * worker 하나가 쓰는 buffer (thread-safe 하지 않음)
+	 * key 가 바뀌어도 비우지 않고, 크기나 대기 시간 조건이 맞을 때만 쓴다.
+	 **/
+	public final class Batch {
+		private final List<KillEvent> events = new ArrayList<>(batchSize);
+		private long firstAddNanos;
+		// batch 안에서 가장 오래된 이벤트 ts => 쓰는 시점의 lag 계산용
+		private long oldestTs = Long.MAX_VALUE;
+		private long lastLagMs;
+
+		private Batch() {
+		}
+
+		/**
+		 * @return 이번 호출로 실제 insert 된 document 수 (조건이 안 맞으면 0)
+		 **/
+		public int add(KillEvent event) {
+			if (events.isEmpty()) firstAddNanos = System.nanoTime();
+			events.add(event);
+			if (event.ts() > 0) oldestTs = Math.min(oldestTs, event.ts());
+			if (events.size() >= batchSize || System.nanoTime() - firstAddNanos >= maxLatencyNanos) {
+				return flush();
+			}
+			return 0;
+		}
+
+		public int flush() {
+			if (events.isEmpty()) return 0;
+			try {
+				WriteResult r = write(events);
+				if (oldestTs != Long.MAX_VALUE) {
+					lastLagMs = Math.max(0, System.currentTimeMillis() - oldestTs);
+				}
+				return r.inserted();
+			} finally {
+				events.clear();
+				oldestTs = Long.MAX_VALUE;
+			}
+		}
+
+		public boolean isEmpty() {
+			return events.isEmpty();
+		}
+
+		public long getLastLagMs() {
+			return lastLagMs;
+		}
+	}
+
+}
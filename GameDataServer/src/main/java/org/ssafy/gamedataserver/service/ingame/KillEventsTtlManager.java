@@ -1,27 +1,360 @@
 package org.ssafy.gamedataserver.service.ingame;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.mongodb.client.model.Updates;
+
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * kill_events 컬렉션 생성 / index / 보관 기간 / ts 마이그레이션
+ *
+ * game.kill.events.time-series=true
+ *  - time-series 컬렉션 : timeField = ts (BSON Date), metaField = meta { matchId, attackerId, weapon }
+ *  - 보관 기간은 컬렉션의 expireAfterSeconds (= game.kill.retention.flushed-days), 값이 바뀌면 collMod
+ *  - 기존 일반 컬렉션은 game.kill.events.migrate=true 일 때만 kill_events_legacy 로 rename 한 뒤
+ *    background 에서 batch 단위로 옮긴다. (모든 서버가 이 버전으로 바뀐 뒤 한 서버에서만 켠다.
+ *    rolling 배포 중 이전 버전 서버가 일반 kill_events 를 다시 만들 수 있기 때문)
+ *    flag 가 꺼져 있으면 기존 일반 컬렉션을 그대로 쓴다.
+ *  - rename / create 뒤에는 listCollections 로 실제 컬렉션 종류를 다시 확인하고,
+ *    이관 중인데 time-series 가 아니면 예외로 서버 시작을 멈춘다.
+ *    진행 위치(_id)는 kill_events_migrations 에 남기므로 중간에 죽어도 이어서 옮긴다.
+ *
+ * game.kill.events.time-series=false (기본값)
+ *  - 일반 컬렉션 + (matchId, hitId) unique index + expireAt TTL index
+ *  - unique index 로 중복 제거가 원자적이다. (time-series 는 unique index 가 없어서 동시에 같은 이벤트를 쓰면 중복될 수 있다.)
+ *  - 문자열 ts 는 background 에서 updateMany($toDate) 로 Date 로 바꾼다.
+ *
+ * 설정과 상관없이 실제 kill_events 가 time-series 이면 time-series 로 쓴다. (isTimeSeries)
+ * 두 경우 모두 match 별 / attacker 별 시간 범위 조회용 compound index 를 만든다.
+ **/
+@Slf4j
 @Service
 public class KillEventsTtlManager {
-	
-//	private final MongoTemplate mongo;
-//	private int ttlDays;
-//	
-//	private static final String COLL_NAME = "kill_events";
-//
-//	public KillEventsTtlManager( MongoTemplate mongo ) {
-//		this.mongo = mongo;
-//	}
-//	
-//	@PostConstruct
-//	public void collectionTtlconfig() {
-//		
-//		
-//	}
-	
-	
+
+	public static final String COLL_NAME = "kill_events";
+	public static final String LEGACY_COLL = "kill_events_legacy";
+	private static final String MIGRATION_COLL = "kill_events_migrations";
+	private static final String MIGRATION_ID = "ts-string-to-date";
+
+	private static final String DEDUPE_INDEX = "uniq_match_hit";
+	private static final String EXPIRE_INDEX = "ttl_expire_at";
+
+	// Mongo error code
+	private static final int NAMESPACE_NOT_FOUND = 26;
+	private static final int NAMESPACE_EXISTS = 48;
+
+	private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private final MongoTemplate mongo;
+	private final long retentionSeconds;
+	private final int migrationBatchSize;
+	private final boolean dropLegacy;
+	private final boolean migrateLegacy;
+	private final String owner;
+	private volatile boolean timeSeries;
+
+	public KillEventsTtlManager(MongoTemplate mongo,
+			@Value("${game.kill.events.time-series:false}") boolean timeSeries,
+			@Value("${game.kill.retention.flushed-days:90}") long retentionDays,
+			@Value("${game.kill.events.migration-batch-size:1000}") int migrationBatchSize,
+			@Value("${game.kill.events.drop-legacy:false}") boolean dropLegacy,
+			@Value("${game.kill.events.migrate:false}") boolean migrateLegacy,
+			@Value("${HOSTNAME:kill-events-1}") String owner) {
+		this.mongo = mongo;
+		this.timeSeries = timeSeries;
+		this.retentionSeconds = TimeUnit.DAYS.toSeconds(retentionDays);
+		this.migrationBatchSize = Math.max(1, migrationBatchSize);
+		this.dropLegacy = dropLegacy;
+		this.migrateLegacy = migrateLegacy;
+		this.owner = owner;
+	}
+
+	public boolean isTimeSeries() {
+		return timeSeries;
+	}
+
+	@PostConstruct
+	public void collectionTtlconfig() {
+		try {
+			if (timeSeries) {
+				ensureTimeSeries();
+			} else if (isTimeSeries(collectionInfo(COLL_NAME))) {
+				// 이미 이관된 컬렉션 => 일반 컬렉션용 upsert / unique index 를 쓸 수 없다.
+				log.warn("[KILL EVENTS] {} is already a time-series collection, ignoring game.kill.events.time-series=false", COLL_NAME);
+				timeSeries = true;
+				ensureTimeSeries();
+			}
+			ensureIndexes();
+		} catch (IllegalStateException e) {
+			// 이관했는데 컬렉션 종류가 다르면 서버를 띄우지 않는다.
+			throw e;
+		} catch (Exception e) {
+			// Mongo 가 준비되지 않았어도 서버는 뜨게 한다. (쓰기는 flusher 가 재시도)
+			log.warn("[KILL EVENTS] failed to prepare {}: {}", COLL_NAME, e.getMessage());
+			return;
+		}
+		Thread t = new Thread(this::migrate, "kill-events-migration");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	private MongoDatabase db() {
+		return mongo.getDb();
+	}
+
+	private Document collectionInfo(String name) {
+		return db().listCollections().filter(Filters.eq("name", name)).first();
+	}
+
+	private static boolean isTimeSeries(Document info) {
+		return info != null && "timeseries".equals(info.getString("type"));
+	}
+
+	private void ensureTimeSeries() {
+		Document info = collectionInfo(COLL_NAME);
+		if (info != null && !isTimeSeries(info)) {
+			if (!migrateLegacy) {
+				log.warn("[KILL EVENTS] {} is a regular collection, staying on it (set game.kill.events.migrate=true to migrate)", COLL_NAME);
+				timeSeries = false;
+				return;
+			}
+			if (collectionInfo(LEGACY_COLL) != null) {
+				// 이전 마이그레이션이 끝나지 않은 상태에서 (이전 버전 서버가) 일반 컬렉션을 다시 만든 경우 => 사람이 정리해야 한다.
+				throw new IllegalStateException("both " + COLL_NAME + " and " + LEGACY_COLL
+						+ " are regular collections, merge them and stop writers of older versions before migrating");
+			}
+			try {
+				db().getCollection(COLL_NAME).renameCollection(new MongoNamespace(db().getName(), LEGACY_COLL));
+				log.info("[KILL EVENTS] renamed regular {} to {} for migration", COLL_NAME, LEGACY_COLL);
+			} catch (MongoCommandException e) {
+				// 다른 서버가 먼저 rename 한 경우
+				if (e.getErrorCode() != NAMESPACE_NOT_FOUND) throw e;
+			}
+			info = null;
+		}
+		if (info == null) {
+			try {
+				db().createCollection(COLL_NAME, new CreateCollectionOptions()
+						.timeSeriesOptions(new TimeSeriesOptions("ts").metaField("meta").granularity(TimeSeriesGranularity.SECONDS))
+						.expireAfter(retentionSeconds, TimeUnit.SECONDS));
+				log.info("[KILL EVENTS] created time-series {} (expireAfterSeconds={})", COLL_NAME, retentionSeconds);
+			} catch (MongoCommandException e) {
+				if (e.getErrorCode() != NAMESPACE_EXISTS) throw e;
+			}
+			verifyTimeSeries();
+			return;
+		}
+		Document options = info.get("options", Document.class);
+		Number current = options == null ? null : options.get("expireAfterSeconds", Number.class);
+		if (current == null || current.longValue() != retentionSeconds) {
+			db().runCommand(new Document("collMod", COLL_NAME).append("expireAfterSeconds", retentionSeconds));
+			log.info("[KILL EVENTS] expireAfterSeconds {} -> {}", current, retentionSeconds);
+		}
+	}
+
+	// create / rename 사이에 다른 서버 (이전 버전) 가 일반 kill_events 를 만들었을 수 있다.
+	private void verifyTimeSeries() {
+		Document info = collectionInfo(COLL_NAME);
+		if (isTimeSeries(info)) return;
+		if (migrateLegacy) {
+			throw new IllegalStateException("kill_events is " + (info == null ? "missing" : info.getString("type"))
+					+ " after time-series migration, stop writers of older versions and restart");
+		}
+		log.warn("[KILL EVENTS] {} was created as a regular collection by another server, staying on it", COLL_NAME);
+		timeSeries = false;
+	}
+
+	private void ensureIndexes() {
+		MongoCollection<Document> coll = db().getCollection(COLL_NAME);
+		if (timeSeries) {
+			createIndex(coll, Indexes.ascending("meta.matchId", "ts"), new IndexOptions().name("match_ts"));
+			createIndex(coll, Indexes.ascending("meta.attackerId", "ts"), new IndexOptions().name("attacker_ts"));
+			// KillEventSink 의 중복 확인용 (time-series 는 unique index 를 지원하지 않는다.)
+			createIndex(coll, Indexes.ascending("meta.matchId", "hitId"), new IndexOptions().name("match_hit"));
+			return;
+		}
+		createIndex(coll, Indexes.ascending("matchId", "ts"), new IndexOptions().name("match_ts"));
+		createIndex(coll, Indexes.ascending("attackerId", "ts"), new IndexOptions().name("attacker_ts"));
+		// 중복 제거용 unique index (matchId, hitId 가 모두 문자열인 document 만 대상)
+		// 기존 중복 데이터가 있으면 index 생성이 실패한다. => 쓰기는 계속하되 중복 제거는 되지 않는다.
+		createIndex(coll, Indexes.ascending("matchId", "hitId"), new IndexOptions()
+				.name(DEDUPE_INDEX)
+				.unique(true)
+				.partialFilterExpression(Filters.and(Filters.type("matchId", "string"), Filters.type("hitId", "string"))));
+		createIndex(coll, Indexes.ascending("expireAt"), new IndexOptions()
+				.name(EXPIRE_INDEX)
+				.expireAfter(0L, TimeUnit.SECONDS));
+	}
+
+	private static void createIndex(MongoCollection<Document> coll, Bson keys, IndexOptions options) {
+		try {
+			coll.createIndex(keys, options);
+		} catch (Exception e) {
+			log.warn("[KILL EVENTS] failed to create {} index: {}", options.getName(), e.getMessage());
+		}
+	}
+
+	private void migrate() {
+		try {
+			if (timeSeries) {
+				copyLegacy();
+			} else {
+				convertInPlace();
+			}
+		} catch (Exception e) {
+			log.warn("[KILL EVENTS] ts migration stopped, will resume on next start: {}", e.getMessage());
+		}
+	}
+
+	// 일반 컬렉션 : 문자열 ts => Date (이미 바뀐 document 는 filter 에 걸리지 않으므로 여러 번 실행해도 된다.)
+	private void convertInPlace() {
+		var result = db().getCollection(COLL_NAME).updateMany(
+				Filters.type("ts", "string"),
+				List.of(new Document("$set", new Document("ts", new Document("$toDate", "$ts")))));
+		if (result.getModifiedCount() > 0) {
+			log.info("[KILL EVENTS] converted {} string ts to Date", result.getModifiedCount());
+		}
+	}
+
+	// kill_events_legacy => time-series kill_events, _id 순서로 batch 단위 복사
+	private void copyLegacy() {
+		if (collectionInfo(LEGACY_COLL) == null) return;
+		MongoCollection<Document> state = db().getCollection(MIGRATION_COLL);
+		Document lease = acquireLease(state);
+		if (lease == null) return;
+
+		MongoCollection<Document> legacy = db().getCollection(LEGACY_COLL);
+		MongoCollection<Document> target = db().getCollection(COLL_NAME);
+		Object lastId = lease.get("lastId");
+		// 이어서 옮기는 경우 첫 batch 는 진행 위치 저장 전에 죽어서 이미 들어갔을 수 있다.
+		boolean resumed = lastId != null;
+		long copied = 0;
+		while (true) {
+			Bson filter = lastId == null ? new Document() : Filters.gt("_id", lastId);
+			List<Document> batch = new ArrayList<>(migrationBatchSize);
+			for (Document d : legacy.find(filter).sort(Sorts.ascending("_id")).limit(migrationBatchSize)) {
+				batch.add(d);
+			}
+			if (batch.isEmpty()) break;
+
+			// 진행 위치 저장 전에 죽으면 마지막 batch 가 한 번 더 들어갈 수 있다.
+			// => 이어서 옮길 때 첫 batch 는 이미 옮겨진 _id 를 빼고 넣는다. (time-series 는 _id 가 unique 가 아니다.)
+			Set<Object> done = resumed ? copiedIds(target, batch) : Set.of();
+			resumed = false;
+			List<Document> converted = new ArrayList<>(batch.size());
+			for (Document d : batch) {
+				if (!done.contains(d.get("_id"))) converted.add(toTimeSeries(d));
+			}
+			if (!converted.isEmpty()) {
+				target.insertMany(converted, new InsertManyOptions().ordered(false));
+			}
+			lastId = batch.get(batch.size() - 1).get("_id");
+			copied += batch.size();
+			state.updateOne(Filters.eq("_id", MIGRATION_ID), Updates.combine(
+					Updates.set("lastId", lastId),
+					Updates.inc("copied", batch.size()),
+					Updates.set("leaseUntil", new Date(System.currentTimeMillis() + LEASE_MILLIS))));
+		}
+		state.updateOne(Filters.eq("_id", MIGRATION_ID), Updates.combine(Updates.set("status", "done"), Updates.set("finishedAt", new Date())));
+		log.info("[KILL EVENTS] migrated {} documents from {}", copied, LEGACY_COLL);
+		if (dropLegacy) {
+			legacy.drop();
+			log.info("[KILL EVENTS] dropped {}", LEGACY_COLL);
+		}
+	}
+
+	// batch 중 target 에 이미 있는 _id (legacy _id 를 그대로 옮기므로 _id 로 비교한다.)
+	private static Set<Object> copiedIds(MongoCollection<Document> target, List<Document> batch) {
+		List<Object> ids = new ArrayList<>(batch.size());
+		for (Document d : batch) ids.add(d.get("_id"));
+		Set<Object> found = new HashSet<>();
+		for (Document d : target.find(Filters.in("_id", ids)).projection(Projections.include("_id"))) {
+			found.add(d.get("_id"));
+		}
+		return found;
+	}
+
+	// 다른 서버가 옮기고 있거나 이미 끝났으면 null
+	private Document acquireLease(MongoCollection<Document> state) {
+		Date now = new Date();
+		try {
+			return state.findOneAndUpdate(
+					Filters.and(
+							Filters.eq("_id", MIGRATION_ID),
+							Filters.ne("status", "done"),
+							Filters.or(Filters.ne("status", "running"), Filters.lt("leaseUntil", now))),
+					Updates.combine(
+							Updates.set("status", "running"),
+							Updates.set("owner", owner),
+							Updates.set("leaseUntil", new Date(now.getTime() + LEASE_MILLIS))),
+					new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+		} catch (MongoWriteException e) {
+			// filter 에 안 맞는 기존 document 가 있어서 upsert 가 _id 중복으로 실패 => 다른 서버 담당 / 완료
+			if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) return null;
+			throw e;
+		} catch (MongoCommandException e) {
+			if (ErrorCategory.fromErrorCode(e.getErrorCode()) == ErrorCategory.DUPLICATE_KEY) return null;
+			throw e;
+		}
+	}
+
+	// 일반 kill_events document => time-series document
+	private static Document toTimeSeries(Document d) {
+		Document out = new Document("_id", d.get("_id"))
+				.append("ts", toDate(d.get("ts"), d.get("_id")))
+				.append("meta", new Document("matchId", d.get("matchId"))
+						.append("attackerId", d.get("attackerId"))
+						.append("weapon", d.get("weapon")))
+				.append("hitId", d.get("hitId"))
+				.append("damage", d.get("damage"));
+		if (d.get("mode") != null) out.append("mode", d.get("mode"));
+		return out;
+	}
+
+	// ISO 문자열 / Date => Date, 읽을 수 없으면 ObjectId 생성 시각
+	private static Date toDate(Object ts, Object id) {
+		if (ts instanceof Date d) return d;
+		if (ts instanceof String s) {
+			try {
+				return Date.from(Instant.parse(s));
+			} catch (DateTimeParseException ignored) {
+				// fall through
+			}
+		}
+		return id instanceof ObjectId oid ? oid.getDate() : new Date();
+	}
+
 }
@@ -0,0 +1,387 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Kill 이벤트 수집 admission control
+ *
+ * Redis buffer 에 쌓인 이벤트 수(전체 / match 별)와 flusher lag 를 보고
+ * high-water mark 를 넘으면 새 이벤트를 429 로 거절(reject)하거나 일부만 받는다(sample).
+ *
+ * depth 는 Redis counter 로 관리한다.
+ *  - 쓰기 : InGameService 가 buffer 쓰기와 같은 pipeline 에서 INCRBY / HINCRBY (recordBuffered)
+ *  - 지우기 : flusher 가 Mongo 쓰기가 끝난 이벤트 수만큼 DECRBY / HINCRBY - (release)
+ *  - stream 모드의 전체 depth 는 counter 대신 shard Stream 들의 XLEN 합을 쓴다. (ACK 후 XDEL 하므로 정확하다.)
+ * 요청마다 Redis 를 읽지 않도록 refresh-ms 주기로 읽어온 snapshot 으로 판단한다.
+ * counter 는 release 누락이나 counter 도입 전에 쌓인 이벤트로 실제와 어긋날 수 있으므로
+ * reconcile-ms 주기로 (서버 하나만) buffer 를 직접 세어 다시 맞춘다.
+ **/
+@Slf4j
+@Component
+public class KillIngestAdmission {
+
+	public static final String DEPTH_KEY = "game:prod:killdepth";             // 전체 buffer 이벤트 수
+	public static final String MATCH_DEPTH_KEY = "game:prod:killdepth:match"; // hash matchId => buffer 이벤트 수
+	public static final String FLUSH_LAG_KEY = "game:prod:killflush:lag";     // flusher 가 기록하는 lag (ms)
+	public static final String RECONCILE_LOCK_KEY = "game:prod:killdepth:reconcile:lock";
+
+	private static final byte[] DEPTH = DEPTH_KEY.getBytes(StandardCharsets.UTF_8);
+	private static final byte[] MATCH_DEPTH = MATCH_DEPTH_KEY.getBytes(StandardCharsets.UTF_8);
+
+	// flush 가 끝난 match (depth <= 0) 의 field 를 지운다. 그 사이 HINCRBY 된 field 는 남긴다.
+	private static final String PRUNE_LUA =
+			"for _, f in ipairs(ARGV) do " +
+			"local v = tonumber(redis.call('HGET', KEYS[1], f)) " +
+			"if v and v <= 0 then redis.call('HDEL', KEYS[1], f) end end " +
+			"return 0";
+	private static final DefaultRedisScript<Long> PRUNE_SCRIPT = new DefaultRedisScript<>(PRUNE_LUA, Long.class);
+	// ARGV = field, 읽어둔 값, field, 읽어둔 값 ... : 값이 그대로인 field 만 지운다. 그 사이 HINCRBY 된 값은 남긴다.
+	private static final String CLEAR_LUA =
+			"local n = 0 " +
+			"for i = 1, #ARGV, 2 do " +
+			"if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then n = n + redis.call('HDEL', KEYS[1], ARGV[i]) end end " +
+			"return n";
+	private static final DefaultRedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>(CLEAR_LUA, Long.class);
+	// list 모드 reconcile : 전체 / match 별 depth 를 직접 센 값으로 한 번에 바꾼다.
+	// KEYS[1] = DEPTH, KEYS[2] = MATCH_DEPTH, ARGV[1] = 전체, ARGV[2..] = matchId, 이벤트 수 ...
+	private static final String RECONCILE_LUA =
+			"redis.call('SET', KEYS[1], ARGV[1]) " +
+			"redis.call('DEL', KEYS[2]) " +
+			"for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1]) end " +
+			"return 0";
+	private static final DefaultRedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(RECONCILE_LUA, Long.class);
+
+	public enum Decision {
+		ADMIT,
+		// sample 정책에서 버려진 이벤트 => 재전송하지 않는다.
+		SAMPLED_OUT,
+		// reject 정책 => 429 + Retry-After
+		REJECT,
+	}
+
+	public enum Policy {
+		REJECT,
+		SAMPLE,
+	}
+
+	private final StringRedisTemplate redis;
+	private final KillBufferWriter writer;
+	private final boolean enabled;
+	private final Policy policy;
+	private final double sampleRate;
+	private final long globalHighWater;
+	private final long matchHighWater;
+	private final long lagHighWaterMs;
+	private final long retryAfterSeconds;
+	private final long reconcileMs;
+
+	// refresh() 로 갱신되는 snapshot
+	private final AtomicLong globalDepth = new AtomicLong();
+	private final AtomicLong flushLagMs = new AtomicLong();
+	private final AtomicLong maxMatchDepth = new AtomicLong();
+	private volatile Map<String, Long> matchDepths = Map.of();
+
+	private final Counter rejectedCounter;
+	private final Counter sampledOutCounter;
+
+	public KillIngestAdmission(StringRedisTemplate redis, KillBufferWriter writer, MeterRegistry meters,
+			@Value("${game.kill.admission.enabled:true}") boolean enabled,
+			@Value("${game.kill.admission.policy:reject}") String policy,
+			@Value("${game.kill.admission.sample-rate:0.1}") double sampleRate,
+			@Value("${game.kill.admission.global-high-water:500000}") long globalHighWater,
+			@Value("${game.kill.admission.match-high-water:20000}") long matchHighWater,
+			@Value("${game.kill.admission.lag-high-water-ms:60000}") long lagHighWaterMs,
+			@Value("${game.kill.admission.retry-after-seconds:5}") long retryAfterSeconds,
+			@Value("${game.kill.admission.reconcile-ms:60000}") long reconcileMs) {
+		this.redis = redis;
+		this.writer = writer;
+		this.enabled = enabled;
+		this.policy = Policy.valueOf(policy.trim().toUpperCase());
+		this.sampleRate = sampleRate;
+		this.globalHighWater = globalHighWater;
+		this.matchHighWater = matchHighWater;
+		this.lagHighWaterMs = lagHighWaterMs;
+		this.retryAfterSeconds = retryAfterSeconds;
+		this.reconcileMs = reconcileMs;
+
+		Gauge.builder("kill.admission.depth", globalDepth, AtomicLong::get)
+				.description("Redis buffer 에 쌓인 kill 이벤트 수").register(meters);
+		Gauge.builder("kill.admission.match.depth.max", maxMatchDepth, AtomicLong::get)
+				.description("match 하나에 쌓인 kill 이벤트 수의 최대값").register(meters);
+		Gauge.builder("kill.admission.flush.lag", flushLagMs, AtomicLong::get)
+				.description("flusher 가 마지막으로 기록한 lag (ms)").register(meters);
+		Gauge.builder("kill.admission.overloaded", this, a -> a.isGloballyOverloaded() ? 1 : 0)
+				.description("전체 high-water mark 초과 여부").register(meters);
+		this.rejectedCounter = Counter.builder("kill.admission.rejected").register(meters);
+		this.sampledOutCounter = Counter.builder("kill.admission.sampled.out").register(meters);
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	/**
+	 * matchId 로 들어온 이벤트 하나를 받을지 결정한다. (Redis 호출 없음)
+	 **/
+	public Decision admit(String matchId) {
+		if (!enabled) return Decision.ADMIT;
+		long matchDepth = matchId == null ? 0 : matchDepths.getOrDefault(matchId, 0L);
+		if (!isGloballyOverloaded() && matchDepth < matchHighWater) {
+			return Decision.ADMIT;
+		}
+		if (policy == Policy.SAMPLE) {
+			if (ThreadLocalRandom.current().nextDouble() < sampleRate) return Decision.ADMIT;
+			sampledOutCounter.increment();
+			return Decision.SAMPLED_OUT;
+		}
+		rejectedCounter.increment();
+		return Decision.REJECT;
+	}
+
+	private boolean isGloballyOverloaded() {
+		return globalDepth.get() >= globalHighWater || flushLagMs.get() >= lagHighWaterMs;
+	}
+
+	/**
+	 * 쓰기 pipeline 안에서 호출 (명령 2개)
+	 **/
+	public int recordBuffered(RedisConnection conn, String matchId, long count) {
+		conn.stringCommands().incrBy(DEPTH, count);
+		conn.hashCommands().hIncrBy(MATCH_DEPTH, matchId.getBytes(StandardCharsets.UTF_8), count);
+		return 2;
+	}
+
+	/**
+	 * flusher 가 Mongo 쓰기를 끝낸 이벤트 수만큼 depth 를 줄인다.
+	 * @param perMatch matchId => 이벤트 수
+	 **/
+	public void release(Map<String, Long> perMatch) {
+		if (perMatch.isEmpty()) return;
+		long total = 0;
+		for (long n : perMatch.values()) total += n;
+		long released = total;
+		try {
+			redis.executePipelined((RedisCallback<Object>) c -> {
+				c.stringCommands().decrBy(DEPTH, released);
+				for (Map.Entry<String, Long> e : perMatch.entrySet()) {
+					if (e.getKey() == null) continue;
+					c.hashCommands().hIncrBy(MATCH_DEPTH, e.getKey().getBytes(StandardCharsets.UTF_8), -e.getValue());
+				}
+				return null;
+			});
+		} catch (Exception e) {
+			log.warn("Failed to release kill buffer depth: {}", e.getMessage());
+		}
+	}
+
+	// flusher 의 lag 를 다른 API 서버도 볼 수 있게 Redis 에 남긴다.
+	public void reportFlushLag(long lagMs) {
+		try {
+			redis.opsForValue().set(FLUSH_LAG_KEY, Long.toString(lagMs));
+		} catch (Exception e) {
+			log.warn("Failed to report kill flush lag: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * counter 가 아니라 buffer 를 직접 세어본 matchId 의 남은 이벤트 수
+	 * list 모드 : game:prod:kill(inflight):{matchId}:* 를 SCAN 해서 LLEN 합
+	 * stream 모드 : match 별로 셀 수 없으므로 그 match 의 shard Stream 이 비어 있을 때만 0
+	 * @return 남은 이벤트 수, 알 수 없으면 -1
+	 **/
+	public long countBuffered(String matchId) {
+		if (writer.getMode() == KillIngestMode.STREAM) {
+			Long len = redis.execute((RedisConnection c) -> c.streamCommands().xLen(KillBufferWriter.streamKey(writer.shardOf(matchId))));
+			return len != null && len == 0 ? 0L : -1L;
+		}
+		long total = 0;
+		for (long n : countLists(escapeGlob(matchId) + ":*").values()) total += n;
+		return total;
+	}
+
+	/**
+	 * list 모드 : game:prod:kill(inflight):{pattern} List 들의 LLEN 을 matchId 별로 더한다.
+	 **/
+	private Map<String, Long> countLists(String pattern) {
+		List<String> keys = new ArrayList<>();
+		redis.execute((RedisConnection conn) -> {
+			for (String prefix : List.of(KillBufferWriter.LIST_PREFIX, KillBufferWriter.INFLIGHT_PREFIX)) {
+				try (Cursor<byte[]> cur = conn.scan(ScanOptions.scanOptions().match(prefix + pattern).count(10000).build())) {
+					while (cur.hasNext()) keys.add(new String(cur.next(), StandardCharsets.UTF_8));
+				}
+			}
+			return null;
+		});
+		Map<String, Long> perMatch = new HashMap<>();
+		if (keys.isEmpty()) return perMatch;
+		List<Object> lengths = redis.executePipelined((RedisCallback<Object>) c -> {
+			for (String key : keys) c.listCommands().lLen(key.getBytes(StandardCharsets.UTF_8));
+			return null;
+		});
+		for (int i = 0; i < keys.size() && i < lengths.size(); i++) {
+			if (!(lengths.get(i) instanceof Long len) || len == 0) continue;
+			perMatch.merge(matchIdOf(keys.get(i)), len, Long::sum);
+		}
+		return perMatch;
+	}
+
+	// game:prod:kill(inflight):{matchId}:{attackerId} => matchId
+	private static String matchIdOf(String key) {
+		String prefix = key.startsWith(KillBufferWriter.INFLIGHT_PREFIX) ? KillBufferWriter.INFLIGHT_PREFIX : KillBufferWriter.LIST_PREFIX;
+		int end = key.lastIndexOf(':');
+		return end > prefix.length() ? key.substring(prefix.length(), end) : key.substring(prefix.length());
+	}
+
+	/**
+	 * buffer 가 비었는데 남아 있는 match depth (release 되지 않은 counter) 를 지운다.
+	 * @param expected 지우기 전에 읽은 값 (그 사이 새 이벤트가 들어왔으면 지우지 않는다.)
+	 * @return 지웠으면 true
+	 **/
+	public boolean clearMatchDepth(String matchId, long expected) {
+		Long n = redis.execute(CLEAR_SCRIPT, List.of(MATCH_DEPTH_KEY), matchId, Long.toString(expected));
+		return n != null && n > 0;
+	}
+
+	// SCAN MATCH 에서 matchId 의 glob 문자를 그대로 비교하도록
+	private static String escapeGlob(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 8);
+		for (int i = 0; i < s.length(); i++) {
+			char ch = s.charAt(i);
+			if (ch == '*' || ch == '?' || ch == '[' || ch == ']' || ch == '\\') sb.append('\\');
+			sb.append(ch);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * depth counter 를 buffer 의 실제 이벤트 수로 다시 맞춘다. (lock 을 잡은 서버 하나만)
+	 *  - list 모드 : List 들을 SCAN + LLEN 해서 DEPTH / MATCH_DEPTH 를 통째로 바꾼다.
+	 *  - stream 모드 : 전체 depth 는 이미 XLEN 이므로, 비어 있는 shard 에 속한 match 의 남은 field 만 지운다.
+	 * 세는 동안 들어오거나 release 된 이벤트만큼은 어긋날 수 있지만 다음 주기에 다시 맞춘다.
+	 **/
+	@Scheduled(fixedDelayString = "${game.kill.admission.reconcile-ms:60000}", initialDelayString = "${game.kill.admission.reconcile-ms:60000}")
+	public void reconcile() {
+		if (!enabled) return;
+		try {
+			Boolean locked = redis.opsForValue().setIfAbsent(RECONCILE_LOCK_KEY, "1", Math.max(1000, reconcileMs / 2), TimeUnit.MILLISECONDS);
+			if (!Boolean.TRUE.equals(locked)) return;
+			if (writer.getMode() == KillIngestMode.STREAM) {
+				reconcileStream();
+				return;
+			}
+			Map<String, Long> perMatch = countLists("*");
+			List<String> args = new ArrayList<>(perMatch.size() * 2 + 1);
+			long total = 0;
+			for (long n : perMatch.values()) total += n;
+			args.add(Long.toString(total));
+			for (Map.Entry<String, Long> e : perMatch.entrySet()) {
+				args.add(e.getKey());
+				args.add(e.getValue().toString());
+			}
+			redis.execute(RECONCILE_SCRIPT, List.of(DEPTH_KEY, MATCH_DEPTH_KEY), args.toArray());
+			log.debug("Reconciled kill buffer depth: {} events in {} matches", total, perMatch.size());
+		} catch (Exception e) {
+			log.warn("Failed to reconcile kill buffer depth: {}", e.getMessage());
+		}
+	}
+
+	private void reconcileStream() {
+		List<Object> lengths = redis.executePipelined((RedisCallback<Object>) c -> {
+			for (int shard = 0; shard < writer.getShards(); shard++) {
+				c.streamCommands().xLen(KillBufferWriter.streamKey(shard));
+			}
+			return null;
+		});
+		List<String> args = new ArrayList<>();
+		for (Map.Entry<Object, Object> e : redis.opsForHash().entries(MATCH_DEPTH_KEY).entrySet()) {
+			int shard = writer.shardOf((String) e.getKey());
+			if (shard < lengths.size() && lengths.get(shard) instanceof Long len && len == 0) {
+				args.add((String) e.getKey());
+				args.add((String) e.getValue());
+			}
+		}
+		if (!args.isEmpty()) {
+			redis.execute(CLEAR_SCRIPT, List.of(MATCH_DEPTH_KEY), args.toArray());
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${game.kill.admission.refresh-ms:1000}")
+	public void refresh() {
+		if (!enabled) return;
+		try {
+			long depth = writer.getMode() == KillIngestMode.STREAM ? streamLength() : parse(redis.opsForValue().get(DEPTH_KEY));
+			String lag = redis.opsForValue().get(FLUSH_LAG_KEY);
+			Map<Object, Object> raw = redis.opsForHash().entries(MATCH_DEPTH_KEY);
+
+			Map<String, Long> depths = new ConcurrentHashMap<>(raw.size());
+			List<String> drained = new ArrayList<>();
+			long max = 0;
+			for (Map.Entry<Object, Object> e : raw.entrySet()) {
+				long n = parse((String) e.getValue());
+				if (n <= 0) {
+					drained.add((String) e.getKey());
+					continue;
+				}
+				depths.put((String) e.getKey(), n);
+				max = Math.max(max, n);
+			}
+			globalDepth.set(Math.max(0, depth));
+			flushLagMs.set(parse(lag));
+			maxMatchDepth.set(max);
+			matchDepths = depths;
+			if (!drained.isEmpty()) {
+				redis.execute(PRUNE_SCRIPT, List.of(MATCH_DEPTH_KEY), drained.toArray());
+			}
+		} catch (Exception e) {
+			// Redis 를 읽지 못하면 직전 snapshot 을 유지한다.
+			log.warn("Failed to refresh kill admission state: {}", e.getMessage());
+		}
+	}
+
+	private long streamLength() {
+		List<Object> lengths = redis.executePipelined((RedisCallback<Object>) c -> {
+			for (int shard = 0; shard < writer.getShards(); shard++) {
+				c.streamCommands().xLen(KillBufferWriter.streamKey(shard));
+			}
+			return null;
+		});
+		long total = 0;
+		for (Object n : lengths) {
+			if (n instanceof Long len) total += len;
+		}
+		return total;
+	}
+
+	private static long parse(String s) {
+		if (s == null) return 0L;
+		try {
+			return Long.parseLong(s);
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+
+}
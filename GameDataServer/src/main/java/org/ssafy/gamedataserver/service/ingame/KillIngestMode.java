@@ -0,0 +1,11 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+/**
+ * Kill 이벤트를 Redis 에 쌓는 방식 (game.kill.ingest-mode)
+ * LIST   : game:prod:kill:{matchId}:{attackerId} List + FlushService (SCAN)
+ * STREAM : game:prod:killstream:{shard} Stream + KillStreamFlushService (XREADGROUP)
+ **/
+public enum KillIngestMode {
+	LIST,
+	STREAM,
+}
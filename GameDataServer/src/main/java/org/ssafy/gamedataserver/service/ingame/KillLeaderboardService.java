@@ -0,0 +1,197 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Service;
+import org.ssafy.gamedataserver.dto.ingame.LeaderboardEntryDto;
+
+/**
+ * Redis sorted set 으로 관리하는 Kill 순위
+ *
+ * key : game:prod:lb:{metric}:{window}:{scope}
+ *  - metric : kills | damage
+ *  - window : all | d{yyyyMMdd} | w{yyyy}W{ww} (ISO week, game.kill.rollup.zone 기준)
+ *  - scope  : global | mode:{MODE} | match:{matchId} (match 는 all window 만)
+ * member = attackerId, score = 누적 kills / damage
+ *
+ * flush 때 새로 들어간 이벤트만 ZINCRBY 하므로 (KillEventListener) 재전송 / 재시도 중복은 점수에 들어가지 않는다.
+ * 일 / 주 단위 key 는 기간이 끝난 뒤 보관 기간이 지나면 EXPIREAT 으로 사라지고, 새 기간은 새 key 에 쌓인다.
+ * 조회는 ZREVRANGE / ZREVRANK 만 쓰므로 O(log N + n) 이다.
+ **/
+@Service
+public class KillLeaderboardService implements KillEventListener {
+
+	public static final String PREFIX = "game:prod:lb:";
+
+	public enum Metric { KILLS, DAMAGE }
+
+	public enum Window { ALL, DAILY, WEEKLY }
+
+	public enum Scope { GLOBAL, MODE, MATCH }
+
+	private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+	private final StringRedisTemplate redis;
+	private final ZoneId zone;
+	private final long dailyKeepDays;
+	private final long weeklyKeepDays;
+	private final long matchTtlSeconds;
+
+	public KillLeaderboardService(StringRedisTemplate redis,
+			@Value("${game.kill.rollup.zone:Asia/Seoul}") String zone,
+			@Value("${game.kill.leaderboard.daily-keep-days:2}") long dailyKeepDays,
+			@Value("${game.kill.leaderboard.weekly-keep-days:14}") long weeklyKeepDays,
+			@Value("${game.kill.leaderboard.match-ttl-seconds:86400}") long matchTtlSeconds) {
+		this.redis = redis;
+		this.zone = ZoneId.of(zone);
+		this.dailyKeepDays = dailyKeepDays;
+		this.weeklyKeepDays = weeklyKeepDays;
+		this.matchTtlSeconds = matchTtlSeconds;
+	}
+
+	@Override
+	public void onInserted(List<KillEvent> events) {
+		// key(metric 제외) => attackerId => { kills, damage }
+		Map<String, Map<String, long[]>> acc = new HashMap<>();
+		// EXPIREAT 을 걸어야 하는 key(metric 제외) => 만료 시각 (epoch seconds)
+		Map<String, Long> expireAt = new HashMap<>();
+		Set<String> matchKeys = new HashSet<>();
+
+		for (KillEvent event : events) {
+			String attackerId = event.attackerId();
+			if (attackerId == null) continue;
+			long damage = event.damage();
+			LocalDate day = Instant.ofEpochMilli(event.tsOrNow()).atZone(zone).toLocalDate();
+
+			List<String> scopes = new ArrayList<>(2);
+			scopes.add(scope(Scope.GLOBAL, null));
+			if (event.mode() != null) scopes.add(scope(Scope.MODE, event.mode()));
+
+			for (String scope : scopes) {
+				add(acc, windowId(Window.ALL, day) + ":" + scope, attackerId, damage);
+
+				String daily = windowId(Window.DAILY, day) + ":" + scope;
+				add(acc, daily, attackerId, damage);
+				expireAt.putIfAbsent(daily, epochSecond(day.plusDays(1 + dailyKeepDays)));
+
+				LocalDate weekStart = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+				String weekly = windowId(Window.WEEKLY, day) + ":" + scope;
+				add(acc, weekly, attackerId, damage);
+				expireAt.putIfAbsent(weekly, epochSecond(weekStart.plusDays(7 + weeklyKeepDays)));
+			}
+			if (event.matchId() != null) {
+				String match = windowId(Window.ALL, day) + ":" + scope(Scope.MATCH, event.matchId());
+				add(acc, match, attackerId, damage);
+				matchKeys.add(match);
+			}
+		}
+		if (acc.isEmpty()) return;
+
+		redis.executePipelined((RedisCallback<Object>) c -> {
+			for (Map.Entry<String, Map<String, long[]>> e : acc.entrySet()) {
+				byte[] killsKey = bytes(PREFIX + "kills:" + e.getKey());
+				byte[] damageKey = bytes(PREFIX + "damage:" + e.getKey());
+				for (Map.Entry<String, long[]> m : e.getValue().entrySet()) {
+					byte[] member = bytes(m.getKey());
+					c.zSetCommands().zIncrBy(killsKey, m.getValue()[0], member);
+					if (m.getValue()[1] != 0) c.zSetCommands().zIncrBy(damageKey, m.getValue()[1], member);
+				}
+				Long at = expireAt.get(e.getKey());
+				if (at != null) {
+					c.keyCommands().expireAt(killsKey, at);
+					c.keyCommands().expireAt(damageKey, at);
+				} else if (matchKeys.contains(e.getKey())) {
+					c.keyCommands().expire(killsKey, matchTtlSeconds);
+					c.keyCommands().expire(damageKey, matchTtlSeconds);
+				}
+			}
+			return null;
+		});
+	}
+
+	private static void add(Map<String, Map<String, long[]>> acc, String key, String attackerId, long damage) {
+		long[] v = acc.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(attackerId, k -> new long[2]);
+		v[0]++;
+		v[1] += damage;
+	}
+
+	/**
+	 * 상위 n 명
+	 * @param offset 0 = 현재 기간, 1 = 직전 기간 (DAILY / WEEKLY 만 의미 있음)
+	 **/
+	public List<LeaderboardEntryDto> top(Metric metric, Window window, Scope scope, String scopeId, int offset, int n) {
+		String key = key(metric, window, scope, scopeId, offset);
+		return entries(redis.opsForZSet().reverseRangeWithScores(key, 0, n - 1L), 1);
+	}
+
+	/**
+	 * attackerId 의 순위 ± k (순위에 없으면 빈 목록)
+	 **/
+	public List<LeaderboardEntryDto> around(Metric metric, Window window, Scope scope, String scopeId, int offset, String attackerId, int k) {
+		String key = key(metric, window, scope, scopeId, offset);
+		Long rank = redis.opsForZSet().reverseRank(key, attackerId);
+		if (rank == null) return List.of();
+		long from = Math.max(0, rank - k);
+		return entries(redis.opsForZSet().reverseRangeWithScores(key, from, rank + k), from + 1);
+	}
+
+	private static List<LeaderboardEntryDto> entries(Set<TypedTuple<String>> tuples, long firstRank) {
+		if (tuples == null) return List.of();
+		List<LeaderboardEntryDto> out = new ArrayList<>(tuples.size());
+		long rank = firstRank;
+		for (TypedTuple<String> t : tuples) {
+			long score = t.getScore() == null ? 0L : t.getScore().longValue();
+			out.add(new LeaderboardEntryDto(rank++, t.getValue(), score));
+		}
+		return out;
+	}
+
+	private String key(Metric metric, Window window, Scope scope, String scopeId, int offset) {
+		LocalDate day = LocalDate.now(zone);
+		if (window == Window.DAILY) day = day.minusDays(offset);
+		if (window == Window.WEEKLY) day = day.minusWeeks(offset);
+		return PREFIX + metric.name().toLowerCase() + ":" + windowId(window, day) + ":" + scope(scope, scopeId);
+	}
+
+	private static String windowId(Window window, LocalDate day) {
+		return switch (window) {
+			case ALL -> "all";
+			case DAILY -> "d" + DAY.format(day);
+			case WEEKLY -> String.format("w%dW%02d", day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+		};
+	}
+
+	private static String scope(Scope scope, String id) {
+		return switch (scope) {
+			case GLOBAL -> "global";
+			case MODE -> "mode:" + id;
+			case MATCH -> "match:" + id;
+		};
+	}
+
+	private long epochSecond(LocalDate day) {
+		return day.atStartOfDay(zone).toEpochSecond();
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
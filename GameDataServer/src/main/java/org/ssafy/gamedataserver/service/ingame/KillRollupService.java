@@ -0,0 +1,166 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.ssafy.gamedataserver.dto.ingame.AttackerKillStatDto;
+import org.ssafy.gamedataserver.dto.ingame.GameInfoDto;
+import org.ssafy.gamedataserver.dto.ingame.HourKillStatDto;
+import org.ssafy.gamedataserver.dto.ingame.WeaponKillStatDto;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * kill_events 의 사전 집계 (rollup)
+ *
+ * flush 때 새로 들어간 이벤트만 batch 단위로 메모리에서 합친 뒤 $inc upsert 한다. (KillEventListener)
+ *  - kill_rollup_weapon   : _id = weapon              => 무기별 kills / damage
+ *  - kill_rollup_hour     : _id = yyyy-MM-dd'T'HH     => 시간 bucket 별 kills / damage (+ hourOfDay)
+ *  - kill_rollup_attacker : _id = attackerId          => 누적 kills / damage, kills 내림차순 index
+ *
+ * /gameInfo 는 이 컬렉션들만 읽으므로 kill_events 크기와 상관없이 읽는 document 수가 일정하다.
+ * (무기 수 + hour-window-days * 24 + leaderboard-size)
+ **/
+@Slf4j
+@Service
+public class KillRollupService implements KillEventListener {
+
+	public static final String WEAPON_COLL = "kill_rollup_weapon";
+	public static final String HOUR_COLL = "kill_rollup_hour";
+	public static final String ATTACKER_COLL = "kill_rollup_attacker";
+
+	private static final String UNKNOWN_WEAPON = "UNKNOWN";
+	private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+	private static final DateTimeFormatter HOUR_ID = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH");
+
+	private final MongoTemplate mongo;
+	private final ZoneId zone;
+	private final int hourWindowDays;
+	private final int leaderboardSize;
+
+	public KillRollupService(MongoTemplate mongo,
+			@Value("${game.kill.rollup.zone:Asia/Seoul}") String zone,
+			@Value("${game.kill.rollup.hour-window-days:7}") int hourWindowDays,
+			@Value("${game.kill.rollup.leaderboard-size:10}") int leaderboardSize) {
+		this.mongo = mongo;
+		this.zone = ZoneId.of(zone);
+		this.hourWindowDays = Math.max(1, hourWindowDays);
+		this.leaderboardSize = Math.max(1, leaderboardSize);
+	}
+
+	@PostConstruct
+	public void ensureIndexes() {
+		try {
+			collection(HOUR_COLL).createIndex(Indexes.ascending("bucket"), new IndexOptions().name("bucket"));
+			collection(ATTACKER_COLL).createIndex(Indexes.descending("kills"), new IndexOptions().name("kills_desc"));
+		} catch (Exception e) {
+			log.warn("[KILL ROLLUP] failed to create indexes: {}", e.getMessage());
+		}
+	}
+
+	private MongoCollection<Document> collection(String name) {
+		return mongo.getCollection(name).withWriteConcern(WriteConcern.W1.withJournal(false));
+	}
+
+	@Override
+	public void onInserted(List<KillEvent> events) {
+		Map<String, long[]> byWeapon = new HashMap<>();
+		Map<ZonedDateTime, long[]> byHour = new HashMap<>();
+		Map<String, long[]> byAttacker = new HashMap<>();
+
+		for (KillEvent event : events) {
+			long damage = event.damage();
+			add(byWeapon, event.weapon() == null ? UNKNOWN_WEAPON : event.weapon().toUpperCase(), damage);
+			add(byHour, Instant.ofEpochMilli(event.tsOrNow()).atZone(zone).truncatedTo(ChronoUnit.HOURS), damage);
+			if (event.attackerId() != null) {
+				add(byAttacker, event.attackerId(), damage);
+			}
+		}
+
+		inc(WEAPON_COLL, byWeapon, (id, m) -> m);
+		inc(HOUR_COLL, byHour, (hour, m) -> m
+				.append("$setOnInsert", new Document("bucket", Date.from(hour.toInstant())).append("hourOfDay", hour.getHour())));
+		inc(ATTACKER_COLL, byAttacker, (id, m) -> m);
+	}
+
+	private static <K> void add(Map<K, long[]> acc, K key, long damage) {
+		long[] v = acc.computeIfAbsent(key, k -> new long[2]);
+		v[0]++;
+		v[1] += damage;
+	}
+
+	// key 마다 { $inc: { kills, damage } } upsert 를 한 번의 unordered bulkWrite 로 보낸다.
+	private <K> void inc(String coll, Map<K, long[]> acc, BiFunction<K, Document, Document> decorator) {
+		if (acc.isEmpty()) return;
+		List<WriteModel<Document>> models = new ArrayList<>(acc.size());
+		for (Map.Entry<K, long[]> e : acc.entrySet()) {
+			Object id = e.getKey() instanceof ZonedDateTime hour ? HOUR_ID.format(hour) : e.getKey();
+			Document update = new Document("$inc", new Document("kills", e.getValue()[0]).append("damage", e.getValue()[1]));
+			models.add(new UpdateOneModel<>(Filters.eq("_id", id), decorator.apply(e.getKey(), update), UPSERT));
+		}
+		collection(coll).bulkWrite(models, new BulkWriteOptions().ordered(false));
+	}
+
+	/**
+	 * rollup 만 읽어서 게임 전체 통계를 만든다.
+	 **/
+	public GameInfoDto getGameInfo() {
+		List<WeaponKillStatDto> weapons = new ArrayList<>();
+		for (Document d : collection(WEAPON_COLL).find().sort(Sorts.descending("kills"))) {
+			weapons.add(new WeaponKillStatDto(d.getString("_id"), number(d, "kills"), number(d, "damage")));
+		}
+
+		long[] hourKills = new long[24];
+		Date from = Date.from(ZonedDateTime.now(zone).truncatedTo(ChronoUnit.HOURS).minusDays(hourWindowDays).toInstant());
+		for (Document d : collection(HOUR_COLL).find(Filters.gte("bucket", from))) {
+			Object hour = d.get("hourOfDay");
+			if (hour instanceof Number h && h.intValue() >= 0 && h.intValue() < 24) {
+				hourKills[h.intValue()] += number(d, "kills");
+			}
+		}
+		List<HourKillStatDto> peakHours = new ArrayList<>(24);
+		for (int h = 0; h < 24; h++) {
+			if (hourKills[h] > 0) peakHours.add(new HourKillStatDto(h, hourKills[h]));
+		}
+		peakHours.sort((a, b) -> Long.compare(b.getKills(), a.getKills()));
+
+		List<AttackerKillStatDto> leaderboard = new ArrayList<>(leaderboardSize);
+		int rank = 1;
+		for (Document d : collection(ATTACKER_COLL).find().sort(Sorts.descending("kills")).limit(leaderboardSize)) {
+			leaderboard.add(new AttackerKillStatDto(rank++, d.getString("_id"), number(d, "kills"), number(d, "damage")));
+		}
+
+		String mostUsed = weapons.isEmpty() ? null : weapons.get(0).getWeapon();
+		return new GameInfoDto(mostUsed, weapons, peakHours, leaderboard);
+	}
+
+	private static long number(Document d, String field) {
+		return d.get(field) instanceof Number n ? n.longValue() : 0L;
+	}
+
+}
@@ -0,0 +1,200 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XPendingOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * game.kill.ingest-mode=stream 일 때의 flusher
+ * shard Stream 마다 consumer group 으로 XREADGROUP => kill_events insert => XACK + XDEL
+ * SCAN 을 쓰지 않으므로 flush 비용은 key 개수가 아니라 이벤트 수에 비례한다.
+ *
+ * insert 전에 죽은 flusher 의 이벤트는 PEL(pending entries list) 에 남아있으므로
+ *  - 같은 consumer 이름으로 재시작하면 자기 PEL(offset 0) 부터 다시 읽고
+ *  - 다른 consumer 의 오래된 pending 은 XCLAIM 으로 가져와서 처리한다.
+ **/
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "game.kill.ingest-mode", havingValue = "stream")
+public class KillStreamFlushService {
+
+	private final StringRedisTemplate redis;
+	private final KillEventSink sink;
+	private final KillEventCodec codec;
+	private final KillBufferWriter writer;
+	private final KillIngestAdmission admission;
+
+	private final String group;
+	private final String consumerName;
+	private final int batchSize;
+	private final int maxBatchesPerShard;
+	private final Duration claimMinIdle;
+
+	// 이번 주기에 처리한 record 중 가장 오래된 것의 대기 시간 (record id 의 ms 부분 기준)
+	private long cycleLagMs;
+
+	public KillStreamFlushService(
+			StringRedisTemplate redis, KillEventSink sink, KillEventCodec codec, KillBufferWriter writer,
+			KillIngestAdmission admission,
+			@Value("${game.kill.stream.group:kill-flusher}") String group,
+			@Value("${game.kill.stream.consumer:${HOSTNAME:flusher-1}}") String consumerName,
+			@Value("${game.kill.stream.batch-size:1000}") int batchSize,
+			@Value("${game.kill.stream.max-batches-per-shard:50}") int maxBatchesPerShard,
+			@Value("${game.kill.stream.claim-min-idle-ms:60000}") long claimMinIdleMs) {
+		this.redis = redis;
+		this.sink = sink;
+		this.codec = codec;
+		this.writer = writer;
+		this.admission = admission;
+		this.group = group;
+		this.consumerName = consumerName;
+		this.batchSize = batchSize;
+		this.maxBatchesPerShard = maxBatchesPerShard;
+		this.claimMinIdle = Duration.ofMillis(claimMinIdleMs);
+	}
+
+	@Scheduled(fixedDelayString = "${game.kill.stream.poll-ms:1000}")
+	public void flush() {
+		cycleLagMs = 0;
+		redis.execute((RedisConnection conn) -> {
+			long inserted = 0;
+			for (int shard = 0; shard < writer.getShards(); shard++) {
+				byte[] key = KillBufferWriter.streamKey(shard);
+				try {
+					ensureGroup(conn, key);
+					inserted += recoverPending(conn, key);
+					inserted += drain(conn, key, ReadOffset.lastConsumed(), maxBatchesPerShard);
+				} catch (Exception e) {
+					// 처리하지 못한 이벤트는 PEL 에 남아있으므로 다음 주기에 다시 처리된다.
+					log.warn("Failed to flush kill stream shard {}: {}", shard, e.getMessage());
+				}
+			}
+			if (inserted > 0) {
+				log.info("[KILL STREAM] {} events inserted to MongoDB", inserted);
+			}
+			return null;
+		});
+		admission.reportFlushLag(cycleLagMs);
+	}
+
+	// XGROUP CREATE key group 0 MKSTREAM (이미 있으면 BUSYGROUP => 무시)
+	private void ensureGroup(RedisConnection conn, byte[] key) {
+		try {
+			conn.streamCommands().xGroupCreate(key, group, ReadOffset.from("0-0"), true);
+		} catch (RedisSystemException e) {
+			if (!isBusyGroup(e)) throw e;
+		}
+	}
+
+	private static boolean isBusyGroup(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t.getMessage() != null && t.getMessage().contains("BUSYGROUP")) return true;
+		}
+		return false;
+	}
+
+	private long recoverPending(RedisConnection conn, byte[] key) {
+		// 1) 내 PEL : 이전 실행에서 읽고 ACK 하지 못한 이벤트
+		long inserted = drain(conn, key, ReadOffset.from("0-0"), maxBatchesPerShard);
+
+		// 2) 다른 consumer 의 PEL : claimMinIdle 이상 처리되지 않은 이벤트는 죽은 것으로 보고 가져온다.
+		PendingMessages pending = conn.streamCommands().xPending(key, group,
+				XPendingOptions.range(Range.unbounded(), (long) batchSize));
+		if (pending == null || pending.isEmpty()) return inserted;
+
+		List<RecordId> stale = new ArrayList<>();
+		for (PendingMessage m : pending) {
+			if (!consumerName.equals(m.getConsumerName()) && m.getElapsedTimeSinceLastDelivery().compareTo(claimMinIdle) >= 0) {
+				stale.add(m.getId());
+			}
+		}
+		if (stale.isEmpty()) return inserted;
+
+		List<ByteRecord> claimed = conn.streamCommands().xClaim(key, group, consumerName,
+				XClaimOptions.minIdle(claimMinIdle).ids(stale.toArray(new RecordId[0])));
+		if (claimed != null && !claimed.isEmpty()) {
+			log.info("[KILL STREAM] claimed {} stale pending events", claimed.size());
+			inserted += insertAndAck(conn, key, claimed);
+		}
+		return inserted;
+	}
+
+	/**
+	 * offset 이 lastConsumed(">") 이면 새 이벤트를, "0-0" 이면 내 PEL 을 batchSize 씩 읽는다.
+	 **/
+	private long drain(RedisConnection conn, byte[] key, ReadOffset offset, int maxBatches) {
+		long inserted = 0;
+		Consumer consumer = Consumer.from(group, consumerName);
+		StreamReadOptions options = StreamReadOptions.empty().count(batchSize);
+		for (int i = 0; i < maxBatches; i++) {
+			List<ByteRecord> records = conn.streamCommands().xReadGroup(consumer, options, StreamOffset.create(key, offset));
+			if (records == null || records.isEmpty()) break;
+			inserted += insertAndAck(conn, key, records);
+			if (records.size() < batchSize) break;
+		}
+		return inserted;
+	}
+
+	// Mongo bulkWrite 가 끝난 뒤에만 XACK + XDEL 한다.
+	// (개별 document 오류는 KillEventSink 가 기록하고, batch 전체 실패는 예외 => ACK 하지 않음)
+	private long insertAndAck(RedisConnection conn, byte[] key, List<ByteRecord> records) {
+		List<KillEvent> events = new ArrayList<>(records.size());
+		RecordId[] ids = new RecordId[records.size()];
+		Map<String, Long> perMatch = new HashMap<>();
+		long now = System.currentTimeMillis();
+		int n = 0;
+		for (ByteRecord record : records) {
+			ids[n++] = record.getId();
+			cycleLagMs = Math.max(cycleLagMs, now - record.getId().getTimestamp());
+			// byte[] key 는 Map.get 으로 찾을 수 없으므로 field 이름을 직접 비교한다.
+			byte[] raw = null, match = null;
+			for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+				if (Arrays.equals(field.getKey(), KillBufferWriter.STREAM_FIELD)) raw = field.getValue();
+				else if (Arrays.equals(field.getKey(), KillBufferWriter.STREAM_MATCH_FIELD)) match = field.getValue();
+			}
+			// depth 는 XADD 때 남긴 matchId 로 release 한다. (버리는 record 도 Stream 에서는 빠진다.)
+			// "m" 이 없는 이전 record 는 디코딩한 matchId 로, 그것도 안 되면 reconcile 이 맞춘다.
+			String matchId = match == null ? null : new String(match, StandardCharsets.UTF_8);
+			try {
+				KillEvent event = codec.decode(raw);
+				events.add(event);
+				if (matchId == null) matchId = event.matchId();
+			} catch (Exception e) {
+				// 디코딩 불가한 record 는 다시 읽어도 실패하므로 ACK 해서 버린다.
+				log.warn("Dropping malformed kill event {}: {}", record.getId(), e.getMessage());
+			}
+			if (matchId != null) perMatch.merge(matchId, 1L, Long::sum);
+		}
+		int inserted = sink.write(events).inserted();
+		conn.streamCommands().xAck(key, group, ids);
+		conn.streamCommands().xDel(key, ids);
+		admission.release(perMatch);
+		return inserted;
+	}
+
+}
@@ -0,0 +1,398 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.ssafy.gamedataserver.dto.ingame.MatchPlayerStatDto;
+import org.ssafy.gamedataserver.dto.ingame.MatchSummaryDto;
+import org.ssafy.gamedataserver.dto.ingame.WeaponKillStatDto;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * match 종료 처리 (match_summaries)
+ *
+ * match 가 끝나면 kill_events 를 matchId 로 한 번 훑어서 (cursor, 메모리에는 player / 무기 수만큼만)
+ * player 별 kills / damage / 무기별 내역과 match 길이를 document 하나로 남긴다.
+ * 결과 화면 / 전적 조회는 kill_events 대신 match_summaries 의 index 로 document 를 읽는다.
+ *
+ * 종료 시점은 Redis sorted set (game:prod:killmatch:due, member = matchId, score = 처리할 시각) 으로 관리한다.
+ *  - 이벤트 수집 : buffer 쓰기와 같은 pipeline 에서 score = now + idle-seconds (touch) => 이벤트가 끊기면 idle 로 종료
+ *  - 명시적 종료 : score = now (end)
+ *  - finalize() : score 가 지난 matchId 를 lease 만큼 미뤄서 가져간 뒤 (다른 서버와 겹치지 않게) 요약을 쓰고 지운다.
+ *    아직 flush 되지 않은 이벤트가 남아 있으면 (KillIngestAdmission 의 match depth) retry-ms 뒤로 미룬다.
+ *    미룬 횟수는 game:prod:killmatch:postponed (hash matchId => 횟수) 에 남기고, max-postpones 를 넘으면
+ *    buffer 를 직접 세어본다. (countBuffered) 비어 있으면 release 되지 않은 counter 이므로 지우고 요약하고,
+ *    그래도 남아 있으면 flush 된 만큼만 요약하고 (kill.match.forced) due 에서 지우지 않고 idle-seconds 뒤로 미룬다.
+ *    미룬 횟수는 그대로 두므로 다음 차례에 바로 다시 확인하고, buffer 가 비면 남은 이벤트까지 다시 요약한다.
+ *    => depth counter 가 새도 영원히 미루지 않고, 늦게 flush 된 이벤트도 요약에서 빠지지 않는다.
+ *    처리 중 같은 match 의 이벤트가 다시 들어오면 score 가 바뀌므로 지우지 않는다. => 다음 종료 때 다시 요약한다.
+ * 요약은 matchId 를 _id 로 replace 하므로 여러 번 실행되어도 결과는 같다.
+ **/
+@Slf4j
+@Service
+public class MatchSummaryService {
+
+	public static final String COLL_NAME = "match_summaries";
+	public static final String DUE_KEY = "game:prod:killmatch:due";
+	public static final String POSTPONED_KEY = "game:prod:killmatch:postponed";
+
+	private static final byte[] DUE = DUE_KEY.getBytes(StandardCharsets.UTF_8);
+	private static final String UNKNOWN_WEAPON = "UNKNOWN";
+	private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+	// 처리할 시각이 지난 matchId 를 최대 ARGV[3] 개 가져가면서 score 를 lease 만료 시각(ARGV[2]) 으로 바꾼다.
+	private static final String CLAIM_LUA =
+			"local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[3])) " +
+			"for _, m in ipairs(due) do redis.call('ZADD', KEYS[1], ARGV[2], m) end " +
+			"return due";
+	// score 가 가져갈 때 그대로면 지우거나 (ARGV[3] == '') ARGV[3] 으로 미룬다. 그 사이 이벤트가 들어왔으면 그대로 둔다.
+	private static final String RELEASE_LUA =
+			"local s = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+			"if not s or tonumber(s) ~= tonumber(ARGV[2]) then return 0 end " +
+			"if ARGV[3] == '' then redis.call('ZREM', KEYS[1], ARGV[1]) " +
+			"else redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1]) end " +
+			"return 1";
+	@SuppressWarnings("rawtypes")
+	private static final DefaultRedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(CLAIM_LUA, List.class);
+	private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(RELEASE_LUA, Long.class);
+
+	private final MongoTemplate mongo;
+	private final StringRedisTemplate redis;
+	private final KillEventsTtlManager collectionManager;
+	private final KillIngestAdmission admission;
+	private final long idleMillis;
+	private final long leaseMillis;
+	private final long retryMillis;
+	private final int batchSize;
+	private final long maxPostpones;
+
+	private final Counter finalizedCounter;
+	private final Counter postponedCounter;
+	private final Counter forcedCounter;
+	private final Counter failedCounter;
+
+	public MatchSummaryService(MongoTemplate mongo, StringRedisTemplate redis, KillEventsTtlManager collectionManager,
+			KillIngestAdmission admission, MeterRegistry meters,
+			@Value("${game.kill.match.idle-seconds:300}") long idleSeconds,
+			@Value("${game.kill.match.lease-seconds:60}") long leaseSeconds,
+			@Value("${game.kill.match.retry-ms:5000}") long retryMillis,
+			@Value("${game.kill.match.finalize-batch:20}") int batchSize,
+			@Value("${game.kill.match.max-postpones:60}") long maxPostpones) {
+		this.mongo = mongo;
+		this.redis = redis;
+		this.collectionManager = collectionManager;
+		this.admission = admission;
+		this.idleMillis = TimeUnit.SECONDS.toMillis(idleSeconds);
+		this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+		this.retryMillis = retryMillis;
+		this.batchSize = Math.max(1, batchSize);
+		this.maxPostpones = Math.max(1, maxPostpones);
+		this.finalizedCounter = Counter.builder("kill.match.finalized").register(meters);
+		this.postponedCounter = Counter.builder("kill.match.postponed").register(meters);
+		this.forcedCounter = Counter.builder("kill.match.forced")
+				.description("max-postpones 를 넘어 buffer 에 이벤트가 남은 채로 요약한 횟수").register(meters);
+		this.failedCounter = Counter.builder("kill.match.failed").register(meters);
+	}
+
+	@PostConstruct
+	public void ensureIndexes() {
+		try {
+			collection().createIndex(Indexes.compoundIndex(Indexes.ascending("players.attackerId"), Indexes.descending("endedAt")),
+					new IndexOptions().name("player_ended"));
+			collection().createIndex(Indexes.descending("endedAt"), new IndexOptions().name("ended_desc"));
+		} catch (Exception e) {
+			log.warn("[MATCH SUMMARY] failed to create indexes: {}", e.getMessage());
+		}
+	}
+
+	private MongoCollection<Document> collection() {
+		return mongo.getCollection(COLL_NAME).withWriteConcern(WriteConcern.W1.withJournal(false));
+	}
+
+	/**
+	 * 쓰기 pipeline 안에서 호출 (명령 1개) : 이벤트가 idle-seconds 동안 없으면 종료 처리한다.
+	 **/
+	public int touch(RedisConnection conn, String matchId) {
+		conn.zSetCommands().zAdd(DUE, System.currentTimeMillis() + idleMillis, matchId.getBytes(StandardCharsets.UTF_8));
+		return 1;
+	}
+
+	/**
+	 * 명시적 종료 : 남은 이벤트가 flush 되는 대로 다음 finalize() 에서 요약한다.
+	 **/
+	public void end(String matchId) {
+		redis.opsForZSet().add(DUE_KEY, matchId, System.currentTimeMillis());
+	}
+
+	@Scheduled(fixedDelayString = "${game.kill.match.finalize-interval-ms:5000}")
+	public void finalizeDue() {
+		List<String> due;
+		long now = System.currentTimeMillis();
+		String leaseUntil = Long.toString(now + leaseMillis);
+		try {
+			due = claim(now, leaseUntil);
+		} catch (Exception e) {
+			log.warn("[MATCH SUMMARY] failed to read due matches: {}", e.getMessage());
+			return;
+		}
+		for (String matchId : due) {
+			try {
+				long pending = pendingEvents(matchId);
+				Decision decision = pending > 0 ? giveUpWaiting(matchId, pending) : Decision.FINALIZE;
+				if (decision == Decision.WAIT) {
+					// 아직 kill_events 에 들어가지 않은 이벤트가 있다.
+					release(matchId, leaseUntil, Long.toString(System.currentTimeMillis() + retryMillis));
+					postponedCounter.increment();
+					continue;
+				}
+				summarize(matchId);
+				if (decision == Decision.FORCE) {
+					// buffer 에 남은 이벤트가 flush 되면 다시 요약한다. (미룬 횟수는 남겨둔다.)
+					release(matchId, leaseUntil, Long.toString(System.currentTimeMillis() + idleMillis));
+					forcedCounter.increment();
+					continue;
+				}
+				release(matchId, leaseUntil, "");
+				redis.opsForHash().delete(POSTPONED_KEY, matchId);
+				finalizedCounter.increment();
+			} catch (Exception e) {
+				// lease 가 끝나면 다시 가져간다.
+				failedCounter.increment();
+				log.warn("[MATCH SUMMARY] failed to finalize match {}: {}", matchId, e.getMessage());
+			}
+		}
+	}
+
+	// WAIT : retry-ms 뒤로 미룬다. FINALIZE : 요약하고 지운다. FORCE : 요약하고 idle-seconds 뒤에 다시 요약한다.
+	private enum Decision { WAIT, FINALIZE, FORCE }
+
+	/**
+	 * 미룬 횟수를 올리고, max-postpones 를 넘었으면 더 기다리지 않는다.
+	 **/
+	private Decision giveUpWaiting(String matchId, long pending) {
+		Long postponed = redis.opsForHash().increment(POSTPONED_KEY, matchId, 1L);
+		if (postponed == null || postponed <= maxPostpones) return Decision.WAIT;
+
+		long buffered = admission.countBuffered(matchId);
+		if (buffered == 0) {
+			// buffer 는 비었는데 counter 만 남은 경우 (release 누락) => counter 를 지우고 정상 요약
+			admission.clearMatchDepth(matchId, pending);
+			log.warn("[MATCH SUMMARY] cleared stale depth {} of match {} after {} postpones", pending, matchId, postponed - 1);
+			return Decision.FINALIZE;
+		}
+		log.warn("[MATCH SUMMARY] summarizing match {} with {} events still buffered after {} postpones",
+				matchId, buffered < 0 ? "unknown" : buffered, postponed - 1);
+		return Decision.FORCE;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> claim(long now, String leaseUntil) {
+		List<String> due = redis.execute(CLAIM_SCRIPT, List.of(DUE_KEY), Long.toString(now), leaseUntil, Integer.toString(batchSize));
+		return due == null ? List.of() : due;
+	}
+
+	private void release(String matchId, String leaseUntil, String next) {
+		redis.execute(RELEASE_SCRIPT, List.of(DUE_KEY), matchId, leaseUntil, next);
+	}
+
+	// Redis buffer / inflight 에 남은 이 match 의 이벤트 수
+	private long pendingEvents(String matchId) {
+		Object depth = redis.opsForHash().get(KillIngestAdmission.MATCH_DEPTH_KEY, matchId);
+		if (depth == null) return 0L;
+		try {
+			return Long.parseLong(depth.toString());
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+
+	/**
+	 * kill_events 를 matchId 로 한 번 훑어서 match_summaries 에 쓴다.
+	 * @return 쓴 요약 (이벤트가 없으면 null)
+	 **/
+	public MatchSummaryDto summarize(String matchId) {
+		boolean timeSeries = collectionManager.isTimeSeries();
+		String prefix = timeSeries ? "meta." : "";
+
+		Map<String, Player> players = new HashMap<>();
+		Map<String, long[]> weapons = new HashMap<>();
+		long kills = 0, damage = 0;
+		long startedAt = Long.MAX_VALUE, endedAt = Long.MIN_VALUE;
+		String mode = null;
+
+		for (Document d : mongo.getCollection(KillEventsTtlManager.COLL_NAME)
+				.find(Filters.eq(prefix + "matchId", matchId))
+				.projection(Projections.fields(Projections.include(prefix + "attackerId", prefix + "weapon", "damage", "ts", "mode"),
+						Projections.excludeId()))) {
+			Document src = timeSeries ? d.get("meta", Document.class) : d;
+			if (src == null) continue;
+			long dmg = d.get("damage") instanceof Number n ? n.longValue() : 0L;
+			String weapon = src.get("weapon") == null ? UNKNOWN_WEAPON : src.get("weapon").toString().toUpperCase();
+			String attackerId = src.get("attackerId") == null ? null : src.get("attackerId").toString();
+
+			kills++;
+			damage += dmg;
+			add(weapons, weapon, dmg);
+			if (attackerId != null) {
+				players.computeIfAbsent(attackerId, Player::new).add(weapon, dmg);
+			}
+			if (d.get("ts") instanceof Date ts) {
+				startedAt = Math.min(startedAt, ts.getTime());
+				endedAt = Math.max(endedAt, ts.getTime());
+			}
+			if (mode == null && d.get("mode") instanceof String m) mode = m;
+		}
+		if (kills == 0) {
+			log.debug("[MATCH SUMMARY] no kill events for match {}", matchId);
+			return null;
+		}
+		if (startedAt > endedAt) startedAt = endedAt = System.currentTimeMillis();
+
+		List<MatchPlayerStatDto> playerStats = new ArrayList<>(players.size());
+		for (Player p : players.values()) {
+			playerStats.add(new MatchPlayerStatDto(p.attackerId, p.kills, p.damage, weaponStats(p.weapons)));
+		}
+		playerStats.sort(Comparator.comparingLong(MatchPlayerStatDto::getKills).reversed()
+				.thenComparing(Comparator.comparingLong(MatchPlayerStatDto::getDamage).reversed()));
+
+		MatchSummaryDto summary = new MatchSummaryDto(matchId, mode, startedAt, endedAt, endedAt - startedAt,
+				kills, damage, playerStats, weaponStats(weapons));
+		collection().replaceOne(Filters.eq("_id", matchId), toDocument(summary), UPSERT);
+		return summary;
+	}
+
+	/**
+	 * match 하나의 요약 (아직 종료 처리되지 않았으면 null)
+	 **/
+	public MatchSummaryDto getSummary(String matchId) {
+		Document d = collection().find(Filters.eq("_id", matchId)).first();
+		return d == null ? null : fromDocument(d);
+	}
+
+	/**
+	 * attackerId 가 참여한 최근 match 요약 (player_ended index)
+	 **/
+	public List<MatchSummaryDto> getHistory(String attackerId, int size) {
+		List<MatchSummaryDto> out = new ArrayList<>(size);
+		for (Document d : collection().find(Filters.eq("players.attackerId", attackerId)).sort(Sorts.descending("endedAt")).limit(size)) {
+			out.add(fromDocument(d));
+		}
+		return out;
+	}
+
+	private static void add(Map<String, long[]> acc, String key, long damage) {
+		long[] v = acc.computeIfAbsent(key, k -> new long[2]);
+		v[0]++;
+		v[1] += damage;
+	}
+
+	// kills 내림차순
+	private static List<WeaponKillStatDto> weaponStats(Map<String, long[]> acc) {
+		List<WeaponKillStatDto> out = new ArrayList<>(acc.size());
+		for (Map.Entry<String, long[]> e : acc.entrySet()) {
+			out.add(new WeaponKillStatDto(e.getKey(), e.getValue()[0], e.getValue()[1]));
+		}
+		out.sort(Comparator.comparingLong(WeaponKillStatDto::getKills).reversed());
+		return out;
+	}
+
+	private static Document toDocument(MatchSummaryDto s) {
+		List<Document> players = new ArrayList<>(s.getPlayers().size());
+		for (MatchPlayerStatDto p : s.getPlayers()) {
+			players.add(new Document("attackerId", p.getAttackerId())
+					.append("kills", p.getKills())
+					.append("damage", p.getDamage())
+					.append("weapons", toDocuments(p.getWeapons())));
+		}
+		return new Document("_id", s.getMatchId())
+				.append("mode", s.getMode())
+				.append("startedAt", new Date(s.getStartedAt()))
+				.append("endedAt", new Date(s.getEndedAt()))
+				.append("durationMs", s.getDurationMs())
+				.append("kills", s.getKills())
+				.append("damage", s.getDamage())
+				.append("players", players)
+				.append("weapons", toDocuments(s.getWeapons()))
+				.append("finalizedAt", new Date());
+	}
+
+	private static List<Document> toDocuments(List<WeaponKillStatDto> weapons) {
+		List<Document> out = new ArrayList<>(weapons.size());
+		for (WeaponKillStatDto w : weapons) {
+			out.add(new Document("weapon", w.getWeapon()).append("kills", w.getKills()).append("damage", w.getDamage()));
+		}
+		return out;
+	}
+
+	private static MatchSummaryDto fromDocument(Document d) {
+		List<MatchPlayerStatDto> players = new ArrayList<>();
+		for (Document p : d.getList("players", Document.class, List.of())) {
+			players.add(new MatchPlayerStatDto(p.getString("attackerId"), number(p, "kills"), number(p, "damage"), fromDocuments(p)));
+		}
+		return new MatchSummaryDto(d.getString("_id"), d.getString("mode"),
+				time(d, "startedAt"), time(d, "endedAt"), number(d, "durationMs"),
+				number(d, "kills"), number(d, "damage"), players, fromDocuments(d));
+	}
+
+	private static List<WeaponKillStatDto> fromDocuments(Document d) {
+		List<WeaponKillStatDto> out = new ArrayList<>();
+		for (Document w : d.getList("weapons", Document.class, List.of())) {
+			out.add(new WeaponKillStatDto(w.getString("weapon"), number(w, "kills"), number(w, "damage")));
+		}
+		return out;
+	}
+
+	private static long number(Document d, String field) {
+		return d.get(field) instanceof Number n ? n.longValue() : 0L;
+	}
+
+	private static long time(Document d, String field) {
+		return d.get(field) instanceof Date date ? date.getTime() : 0L;
+	}
+
+	// player 한 명의 집계
+	private static final class Player {
+		private final String attackerId;
+		private final Map<String, long[]> weapons = new HashMap<>();
+		private long kills;
+		private long damage;
+
+		private Player(String attackerId) {
+			this.attackerId = attackerId;
+		}
+
+		private void add(String weapon, long dmg) {
+			kills++;
+			damage += dmg;
+			MatchSummaryService.add(weapons, weapon, dmg);
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+-- prod (ddl-auto=validate) 에서 Hibernate 검증 전에 실행되는 schema 보강 script
+-- spring.sql.init.mode=always (application-prod.properties) : 매 시작마다 실행되므로 모든 문장은 여러 번 실행해도 된다.
+
+-- BattleStatAccumulator 가 battle_stats 에 반영한 delta batch 기록 (entity : BattleStatFlush)
+CREATE TABLE IF NOT EXISTS battle_stat_flushes (
+    id         VARCHAR(36) NOT NULL,
+    applied_at DATETIME(6) NOT NULL,
+    row_count  INT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- battle_stats (user_id, mode, weapon) unique key (BattleStatProvisioner 의 INSERT IGNORE 가 중복을 거르는 기준)
+-- key 가 없을 때만 : 이미 있는 중복 row 는 가장 작은 id 에 합치고 나머지를 지운 뒤 key 를 만든다.
+SET @uk_missing = (SELECT COUNT(*) = 0 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = 'battle_stats'
+                     AND index_name = 'uk_battle_stats_user_mode_weapon');
+
+SET @ddl = IF(@uk_missing,
+    'UPDATE battle_stats k JOIN (SELECT MIN(id) AS keep_id, SUM(wins) AS wins, SUM(losses) AS losses, SUM(kills) AS kills, SUM(deaths) AS deaths, SUM(damage) AS damage FROM battle_stats GROUP BY user_id, mode, weapon HAVING COUNT(*) > 1) d ON k.id = d.keep_id SET k.wins = d.wins, k.losses = d.losses, k.kills = d.kills, k.deaths = d.deaths, k.damage = d.damage',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(@uk_missing,
+    'DELETE b FROM battle_stats b JOIN (SELECT user_id, mode, weapon, MIN(id) AS keep_id FROM battle_stats GROUP BY user_id, mode, weapon HAVING COUNT(*) > 1) d ON b.user_id = d.user_id AND b.mode = d.mode AND b.weapon = d.weapon AND b.id <> d.keep_id',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(@uk_missing,
+    'ALTER TABLE battle_stats ADD CONSTRAINT uk_battle_stats_user_mode_weapon UNIQUE (user_id, mode, weapon)',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,219 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.ssafy.gamedataserver.dto.ingame.DamageDto;
+import org.ssafy.gamedataserver.dto.ingame.KillBatchResultDto;
+import org.ssafy.gamedataserver.dto.ingame.KillBatchResultDto.EventResult;
+import org.ssafy.gamedataserver.service.ingame.KillIngestAdmission.Decision;
+
+/**
+ * InGameService.saveRedisBatch
+ * 요청 index => Key 그룹 => pipeline 결과 위치가 맞게 이어지는지 (실패한 그룹의 이벤트만 거절되는지) 확인한다.
+ * 그룹마다 append 1 + recordBuffered 2 + touch 1 = 명령 4개
+ **/
+class InGameServiceBatchTest {
+
+	private static final int COMMANDS_PER_GROUP = 4;
+
+	private final KillEventCodec codec = new KillEventCodec("json");
+
+	private StringRedisTemplate redis;
+	private KillBufferWriter writer;
+	private KillIngestAdmission admission;
+	private MatchSummaryService matches;
+	private InGameService service;
+
+	@BeforeEach
+	void setUp() {
+		redis = mock(StringRedisTemplate.class);
+		writer = mock(KillBufferWriter.class);
+		admission = mock(KillIngestAdmission.class);
+		matches = mock(MatchSummaryService.class);
+		service = new InGameService(mock(MongoTemplate.class), codec, writer, admission, mock(KillRollupService.class), matches, 90L);
+		ReflectionTestUtils.setField(service, "redis", redis);
+
+		when(admission.admit(anyString())).thenReturn(Decision.ADMIT);
+		when(writer.append(any(), anyString(), anyString(), any(byte[][].class))).thenReturn(1);
+		when(admission.recordBuffered(any(), anyString(), anyLong())).thenReturn(2);
+		when(matches.touch(any(), anyString())).thenReturn(1);
+	}
+
+	@Test
+	void groupsInterleavedKeysAndMapsResultsBackToRequestIndex() throws IOException {
+		List<DamageDto> reqs = List.of(
+				dto("m1", "a", "h0"),
+				dto("m1", "b", "h1"),
+				dto("m1", "a", ""),
+				dto("m1", "a", "h3"),
+				dto("m1", "b", "h4"));
+		// 그룹 순서 : (m1, a) => [0, 3], (m1, b) => [1, 4]
+		pipelineReturns(ok(COMMANDS_PER_GROUP), ok(COMMANDS_PER_GROUP));
+
+		KillBatchResultDto result = service.saveRedisBatch(reqs);
+
+		assertEquals(4, result.getAccepted());
+		assertEquals(1, result.getRejected());
+		assertAccepted(result, 0, "h0");
+		assertAccepted(result, 1, "h1");
+		assertRejected(result, 2, "", "hitId is blank");
+		assertAccepted(result, 3, "h3");
+		assertAccepted(result, 4, "h4");
+
+		// 같은 Key 의 이벤트는 요청 순서대로 LPUSH 한 번에 들어간다.
+		ArgumentCaptor<byte[][]> values = ArgumentCaptor.forClass(byte[][].class);
+		verify(writer).append(any(), eq("m1"), eq("a"), values.capture());
+		assertEquals(2, values.getValue().length);
+		assertEquals("h0", codec.decode(values.getValue()[0]).hitId());
+		assertEquals("h3", codec.decode(values.getValue()[1]).hitId());
+		// 그룹마다 depth 를 그룹 크기만큼 올린다. (두 그룹 모두 m1 / 2개)
+		verify(admission, times(2)).recordBuffered(any(), eq("m1"), eq(2L));
+	}
+
+	@Test
+	void failedCommandRejectsOnlyItsGroup() {
+		List<DamageDto> reqs = List.of(
+				dto("m1", "a", "h0"),
+				dto("m2", "b", "h1"),
+				dto("m1", "a", "h2"),
+				dto("m3", "c", "h3"));
+		// 두 번째 그룹 (m2, b) 의 append 가 실패
+		List<Object> second = ok(COMMANDS_PER_GROUP);
+		second.set(0, new IllegalStateException("WRONGTYPE"));
+		pipelineThrows(ok(COMMANDS_PER_GROUP), second, ok(COMMANDS_PER_GROUP));
+
+		KillBatchResultDto result = service.saveRedisBatch(reqs);
+
+		assertEquals(3, result.getAccepted());
+		assertAccepted(result, 0, "h0");
+		assertRejected(result, 1, "h1", "redis error: WRONGTYPE");
+		assertAccepted(result, 2, "h2");
+		assertAccepted(result, 3, "h3");
+	}
+
+	@Test
+	void admissionDecisionsKeepTheirIndex() {
+		when(admission.admit("busy")).thenReturn(Decision.REJECT);
+		when(admission.admit("sampled")).thenReturn(Decision.SAMPLED_OUT);
+		List<DamageDto> reqs = List.of(
+				dto("busy", "a", "h0"),
+				dto("m1", "a", "h1"),
+				dto("sampled", "a", "h2"),
+				dto("m1", "a:1", "h3"));
+		pipelineReturns(ok(COMMANDS_PER_GROUP));
+
+		KillBatchResultDto result = service.saveRedisBatch(reqs);
+
+		assertEquals(1, result.getAccepted());
+		assertRejected(result, 0, "h0", KillBatchResultDto.REASON_OVERLOADED);
+		assertAccepted(result, 1, "h1");
+		assertRejected(result, 2, "h2", KillBatchResultDto.REASON_SAMPLED_OUT);
+		// buffer key 의 구분자 ':' 가 들어간 id 는 받지 않는다.
+		assertRejected(result, 3, "h3", "attackerId must not contain ':'");
+		assertTrue(result.hasOverloaded());
+	}
+
+	@Test
+	void connectionFailureRejectsEveryValidEvent() {
+		when(redis.executePipelined(any(RedisCallback.class))).thenThrow(new IllegalStateException("connection refused"));
+		List<DamageDto> reqs = List.of(dto("m1", "a", "h0"), dto("", "a", "h1"), dto("m1", "b", "h2"));
+
+		KillBatchResultDto result = service.saveRedisBatch(reqs);
+
+		assertEquals(0, result.getAccepted());
+		assertRejected(result, 0, "h0", "redis unavailable");
+		assertRejected(result, 1, "h1", "matchId is blank");
+		assertRejected(result, 2, "h2", "redis unavailable");
+	}
+
+	@Test
+	void invalidOnlyBatchSkipsRedis() {
+		KillBatchResultDto result = service.saveRedisBatch(List.of(dto("m1", "", "h0")));
+
+		assertEquals(0, result.getAccepted());
+		assertRejected(result, 0, "h0", "attackerId is blank");
+		verify(redis, never()).executePipelined(any(RedisCallback.class));
+	}
+
+	// pipeline 안의 명령은 mock 이 받고, 결과는 그룹 순서대로 이어 붙여서 돌려준다.
+	@SafeVarargs
+	private void pipelineReturns(List<Object>... groups) {
+		when(redis.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+			RedisCallback<?> callback = inv.getArgument(0);
+			callback.doInRedis(mock(RedisConnection.class));
+			return concat(groups);
+		});
+	}
+
+	@SafeVarargs
+	private void pipelineThrows(List<Object>... groups) {
+		when(redis.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+			RedisCallback<?> callback = inv.getArgument(0);
+			callback.doInRedis(mock(RedisConnection.class));
+			throw new RedisPipelineException("pipeline failed", new IllegalStateException("WRONGTYPE"), concat(groups));
+		});
+	}
+
+	private static List<Object> concat(List<Object>[] groups) {
+		List<Object> out = new ArrayList<>();
+		for (List<Object> g : groups) out.addAll(g);
+		return out;
+	}
+
+	private static List<Object> ok(int commands) {
+		List<Object> out = new ArrayList<>(commands);
+		for (int i = 0; i < commands; i++) out.add(1L);
+		return out;
+	}
+
+	private static void assertAccepted(KillBatchResultDto result, int index, String hitId) {
+		EventResult r = result.getResults().get(index);
+		assertEquals(index, r.getIndex());
+		assertEquals(hitId, r.getHitId());
+		assertTrue(r.isAccepted(), () -> "index " + index + " rejected: " + r.getReason());
+		assertNull(r.getReason());
+	}
+
+	private static void assertRejected(KillBatchResultDto result, int index, String hitId, String reason) {
+		EventResult r = result.getResults().get(index);
+		assertEquals(index, r.getIndex());
+		assertEquals(hitId, r.getHitId());
+		assertFalse(r.isAccepted());
+		assertEquals(reason, r.getReason());
+	}
+
+	private static DamageDto dto(String matchId, String attackerId, String hitId) {
+		DamageDto dto = new DamageDto();
+		dto.setMatchId(matchId);
+		dto.setAttackerId(attackerId);
+		dto.setHitId(hitId);
+		dto.setDamage(10);
+		dto.setWeapon("SWORD");
+		return dto;
+	}
+}
@@ -0,0 +1,181 @@
+package org.ssafy.gamedataserver.service.ingame;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.ssafy.gamedataserver.dto.ingame.DamageDto;
+
+/**
+ * KillEventCodec / KillEventBinaryFormat / KillEventEncoder
+ * JSON, binary v1 / v2 record 를 쓰고 다시 읽어서 값이 그대로인지, 잘린 record 를 거절하는지 확인한다.
+ **/
+class KillEventCodecTest {
+
+	private static final long TS = 1_735_000_000_123L;
+
+	private final KillEventCodec json = new KillEventCodec("json");
+	private final KillEventCodec binary = new KillEventCodec("binary");
+
+	@Test
+	void binaryWithoutTtlAndModeIsVersion1() throws IOException {
+		byte[] raw = binary.encode(dto("m1", "a1", "h1", 35, "SWORD"), TS, 0L, null);
+
+		assertEquals(KillEventBinaryFormat.VERSION_1, raw[0]);
+		assertEquals(new KillEvent("m1", "a1", "h1", 35, "SWORD", TS, 0L, null), binary.decode(raw));
+	}
+
+	@Test
+	void binaryWithTtlOrModeIsVersion2() throws IOException {
+		byte[] both = binary.encode(dto("m1", "a1", "h1", 35, "BOW"), TS, 3600L, "TEAM");
+		byte[] ttlOnly = binary.encode(dto("m1", "a1", "h1", 35, "BOW"), TS, 3600L, null);
+		byte[] modeOnly = binary.encode(dto("m1", "a1", "h1", 35, "BOW"), TS, 0L, "SINGLE");
+
+		assertEquals(KillEventBinaryFormat.VERSION_2, both[0]);
+		assertEquals(new KillEvent("m1", "a1", "h1", 35, "BOW", TS, 3600L, "TEAM"), binary.decode(both));
+		assertEquals(new KillEvent("m1", "a1", "h1", 35, "BOW", TS, 3600L, null), binary.decode(ttlOnly));
+		assertEquals(new KillEvent("m1", "a1", "h1", 35, "BOW", TS, 0L, "SINGLE"), binary.decode(modeOnly));
+	}
+
+	@Test
+	void binaryVarintsKeepLargeAndNegativeValues() throws IOException {
+		for (int damage : new int[] { 0, 1, -1, 63, -64, 64, 300, Integer.MAX_VALUE, Integer.MIN_VALUE }) {
+			for (long ts : new long[] { 0L, 127L, 128L, TS, Long.MAX_VALUE }) {
+				byte[] raw = binary.encode(dto("m", "a", "h", damage, "WAND"), ts, 0L, null);
+				KillEvent event = binary.decode(raw);
+				assertEquals(damage, event.damage(), "damage " + damage);
+				assertEquals(ts, event.ts(), "ts " + ts);
+			}
+		}
+	}
+
+	@Test
+	void binaryWeaponUsesOrdinalOrFallsBackToString() throws IOException {
+		// Weapon 이름이면 (대소문자 무시) ordinal 로 저장되고 enum 이름으로 읽힌다.
+		byte[] known = binary.encode(dto("m", "a", "h", 1, "bow"), TS, 0L, null);
+		byte[] custom = binary.encode(dto("m", "a", "h", 1, "Laser \"X\""), TS, 0L, null);
+		byte[] none = binary.encode(dto("m", "a", "h", 1, null), TS, 0L, null);
+
+		assertEquals("BOW", binary.decode(known).weapon());
+		assertEquals("Laser \"X\"", binary.decode(custom).weapon());
+		assertNull(binary.decode(none).weapon());
+		assertTrue(known.length < custom.length);
+	}
+
+	@Test
+	void binaryKeepsNullAndUnicodeStrings() throws IOException {
+		byte[] raw = binary.encode(dto("매치-1", null, "h\u0000", 1, "SWORD"), TS, 0L, null);
+
+		KillEvent event = binary.decode(raw);
+		assertEquals("매치-1", event.matchId());
+		assertNull(event.attackerId());
+		assertEquals("h\u0000", event.hitId());
+	}
+
+	@Test
+	void jsonRoundTripWithEscapedStrings() throws IOException {
+		String matchId = "m\"1\\";
+		String attackerId = "a\n\t\u0001b";
+		String hitId = "히트-😀";
+		byte[] raw = json.encode(dto(matchId, attackerId, hitId, -7, "Laser \"X\""), TS, 600L, "PRIVATE");
+
+		assertEquals('{', raw[0]);
+		assertEquals(new KillEvent(matchId, attackerId, hitId, -7, "Laser \"X\"", TS, 600L, "PRIVATE"), json.decode(raw));
+	}
+
+	@Test
+	void jsonOmitsTtlAndModeWhenAbsent() throws IOException {
+		byte[] raw = json.encode(dto("m1", "a1", "h1", 35, null), TS, 0L, null);
+
+		String text = new String(raw, StandardCharsets.UTF_8);
+		assertFalse(text.contains("\"ttl\""));
+		assertFalse(text.contains("\"mode\""));
+		assertEquals(new KillEvent("m1", "a1", "h1", 35, null, TS, 0L, null), json.decode(raw));
+	}
+
+	@Test
+	void decodeDetectsFormatPerRecord() throws IOException {
+		// 쓰기 형식을 바꿔도 이미 쌓인 다른 형식의 record 를 읽는다.
+		byte[] fromJson = json.encode(dto("m1", "a1", "h1", 35, "SWORD"), TS, 0L, "TEAM");
+		byte[] fromBinary = binary.encode(dto("m1", "a1", "h1", 35, "SWORD"), TS, 0L, "TEAM");
+
+		assertFalse(KillEventBinaryFormat.isBinary(fromJson));
+		assertTrue(KillEventBinaryFormat.isBinary(fromBinary));
+		assertEquals(json.decode(fromJson), json.decode(fromBinary));
+		assertEquals(binary.decode(fromJson), binary.decode(fromBinary));
+	}
+
+	@Test
+	void jsonSkipsUnknownFields() throws IOException {
+		byte[] raw = "{\"matchId\":\"m1\",\"extra\":{\"a\":[1,2]},\"attackerId\":\"a1\",\"hitId\":\"h1\",\"damage\":5,\"weapon\":\"BOW\",\"ts\":10}"
+				.getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(new KillEvent("m1", "a1", "h1", 5, "BOW", 10L, 0L, null), json.decode(raw));
+	}
+
+	@Test
+	void binaryRejectsTruncatedRecords() {
+		byte[] v1 = binary.encode(dto("match-1", "attacker-1", "hit-1", 35, "Laser"), TS, 0L, null);
+		for (int len = 1; len < v1.length; len++) {
+			byte[] cut = Arrays.copyOf(v1, len);
+			assertThrows(IllegalArgumentException.class, () -> KillEventBinaryFormat.decode(cut), "v1 cut at " + len);
+		}
+
+		// version 2 는 mode 가 없으면 ttl 에서 끝나므로 mode 문자열 중간에서 자른다.
+		byte[] v2 = binary.encode(dto("m", "a", "h", 1, "SWORD"), TS, 60L, "SINGLE");
+		byte[] cut = Arrays.copyOf(v2, v2.length - 2);
+		assertThrows(IllegalArgumentException.class, () -> KillEventBinaryFormat.decode(cut));
+	}
+
+	@Test
+	void binaryRejectsUnknownVersionAndWeaponOrdinal() {
+		byte[] raw = binary.encode(dto("m", "a", "h", 1, "SWORD"), 1L, 0L, null);
+
+		byte[] version = raw.clone();
+		version[0] = 0x03;
+		assertThrows(IllegalArgumentException.class, () -> KillEventBinaryFormat.decode(version));
+
+		// [0] version, [1] ts (1 byte), [2] damage (1 byte), [3] weapon
+		byte[] weapon = raw.clone();
+		weapon[3] = 0x40;
+		assertThrows(IllegalArgumentException.class, () -> KillEventBinaryFormat.decode(weapon));
+	}
+
+	@Test
+	void jsonRejectsTruncatedAndNonObjectRecords() {
+		byte[] raw = json.encode(dto("m1", "a1", "h1", 35, "SWORD"), TS, 0L, null);
+		byte[] cut = Arrays.copyOf(raw, raw.length / 2);
+
+		assertThrows(IOException.class, () -> json.decode(cut));
+		assertThrows(IOException.class, () -> json.decode("[1,2]".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(IOException.class, () -> json.decode(new byte[0]));
+	}
+
+	@Test
+	void encoderReturnsIndependentArrays() throws IOException {
+		// thread 별 buffer 를 재사용하므로 앞에서 받은 배열이 덮어써지지 않는지 확인한다.
+		byte[] first = json.encode(dto("m1", "a1", "h1", 1, "SWORD"), TS, 0L, null);
+		byte[] copy = first.clone();
+		json.encode(dto("m2", "a2", "h2", 2, "BOW"), TS, 0L, null);
+
+		assertArrayEquals(copy, first);
+	}
+
+	private static DamageDto dto(String matchId, String attackerId, String hitId, int damage, String weapon) {
+		DamageDto dto = new DamageDto();
+		dto.setMatchId(matchId);
+		dto.setAttackerId(attackerId);
+		dto.setHitId(hitId);
+		dto.setDamage(damage);
+		dto.setWeapon(weapon);
+		return dto;
+	}
+}